@@ -2,12 +2,15 @@ package ia_x_ai_hackathon.chatty_potato.common.config;
 
 import ia_x_ai_hackathon.chatty_potato.common.filter.JwtAuthenticationFilter;
 import ia_x_ai_hackathon.chatty_potato.common.resolver.UserArgumentResolver;
+import ia_x_ai_hackathon.chatty_potato.common.util.JwtUtil;
+import jakarta.servlet.DispatcherType;
 
 import java.util.List;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -61,7 +64,15 @@ public class SecurityConfig implements WebMvcConfigurer {
 				.cors(Customizer.withDefaults())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(authorize -> authorize
+						// 비동기 응답 재디스패치는 최초 REQUEST에서 이미 인가됨
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 						.requestMatchers("/api/auth/guest").permitAll()
+						// 헬스체크만 공개, 지표(/actuator/prometheus 등)는 사용자/트래픽 정보가 담기므로 인증 필요
+						.requestMatchers("/actuator/health").permitAll()
+						// 공용 검색 인덱스에 쓰는 문서 색인은 관리자만 (게스트 토큰으로 덮어쓰기/주입 방지)
+						.requestMatchers(HttpMethod.POST, "/api/rag/documents").hasRole(JwtUtil.ROLE_ADMIN)
+						// 대량 색인/상태 조회도 관리자만 (임베딩·ES 비용, 다른 작업의 오류 내용 노출 방지)
+						.requestMatchers("/api/rag/documents/bulk", "/api/rag/documents/bulk/**").hasRole(JwtUtil.ROLE_ADMIN)
 						.anyRequest().authenticated()
 				)
 
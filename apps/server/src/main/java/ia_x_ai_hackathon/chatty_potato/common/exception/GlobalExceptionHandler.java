@@ -1,7 +1,17 @@
 package ia_x_ai_hackathon.chatty_potato.common.exception;
 
+import ia_x_ai_hackathon.chatty_potato.rag.exception.AdmissionRejectedException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobAlreadyRunningException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobNotFoundException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkPayloadTooLargeException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.EmbeddingUnavailableException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.GenerationFailedException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.InvalidDocumentException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.PipelineOverloadedException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.PromptBuildFailedException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.PromptTimeoutException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.QueryTooLongException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.RouteMismatchException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.TaskNotFoundException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -10,6 +20,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -38,6 +50,34 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(pd);
 	}
 
+	@ExceptionHandler(BulkJobNotFoundException.class)
+	public ResponseEntity<ProblemDetail> handle(BulkJobNotFoundException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
+		pd.setTitle("Bulk Job Not Found");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("jobId", ex.getJobId());
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(pd);
+	}
+
+	@ExceptionHandler(BulkJobAlreadyRunningException.class)
+	public ResponseEntity<ProblemDetail> handle(BulkJobAlreadyRunningException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.CONFLICT); // 409
+		pd.setTitle("Bulk Job Already Running");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("jobId", ex.getJobId());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+	}
+
+	@ExceptionHandler(BulkPayloadTooLargeException.class)
+	public ResponseEntity<ProblemDetail> handle(BulkPayloadTooLargeException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.PAYLOAD_TOO_LARGE); // 413
+		pd.setTitle("Bulk Payload Too Large");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("jobId", ex.getJobId());
+		pd.setProperty("maxBytes", ex.getMaxBytes());
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(pd);
+	}
+
 	@ExceptionHandler(PromptBuildFailedException.class)
 	public ResponseEntity<ProblemDetail> handle(PromptBuildFailedException ex) {
 		var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
@@ -48,4 +88,96 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.badRequest().body(pd);
 	}
 
+	@ExceptionHandler(GenerationFailedException.class)
+	public ResponseEntity<ProblemDetail> handle(GenerationFailedException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.BAD_GATEWAY); // 502
+		pd.setTitle("Generation Failed");
+		pd.setDetail(ex.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(pd);
+	}
+
+	@ExceptionHandler(InvalidDocumentException.class)
+	public ResponseEntity<ProblemDetail> handle(InvalidDocumentException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+		pd.setTitle("Invalid Document");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("documentId", ex.getDocumentId());
+		return ResponseEntity.badRequest().body(pd);
+	}
+
+	@ExceptionHandler(QueryTooLongException.class)
+	public ResponseEntity<ProblemDetail> handle(QueryTooLongException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+		pd.setTitle("Query Too Long");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("profile", ex.getProfile());
+		pd.setProperty("queryTokens", ex.getQueryTokens());
+		pd.setProperty("availableTokens", ex.getAvailableTokens());
+		return ResponseEntity.badRequest().body(pd);
+	}
+
+	// rewrite 시 예산을 잡은 모델과 실제 라우트 모델의 한도가 맞지 않음 (low 로 다시 rewrite 필요)
+	@ExceptionHandler(RouteMismatchException.class)
+	public ResponseEntity<ProblemDetail> handle(RouteMismatchException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.CONFLICT); // 409
+		pd.setTitle("Route Mismatch");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("userId", ex.getUserId());
+		pd.setProperty("taskId", ex.getTaskId());
+		pd.setProperty("builtFor", ex.getBuiltFor());
+		pd.setProperty("requestedRoute", ex.getRequestedRoute());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+	}
+
+	@ExceptionHandler(EmbeddingUnavailableException.class)
+	public ResponseEntity<ProblemDetail> handle(EmbeddingUnavailableException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE); // 503
+		pd.setTitle("Embedding Unavailable");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("documentId", ex.getDocumentId());
+		pd.setProperty("failedChunks", ex.getFailedChunks());
+
+		var headers = new HttpHeaders();
+		headers.add(HttpHeaders.RETRY_AFTER, "5");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(headers).body(pd);
+	}
+
+	@ExceptionHandler(PipelineOverloadedException.class)
+	public ResponseEntity<ProblemDetail> handle(PipelineOverloadedException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE); // 503
+		pd.setTitle("Pipeline Overloaded");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("stage", ex.getStage());
+
+		var headers = new HttpHeaders();
+		headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(headers).body(pd);
+	}
+
+	@ExceptionHandler(AdmissionRejectedException.class)
+	public ResponseEntity<ProblemDetail> handle(AdmissionRejectedException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS); // 429
+		pd.setTitle("Too Many Requests");
+		pd.setDetail(ex.getMessage());
+		pd.setProperty("stage", ex.getStage());
+		pd.setProperty("userId", ex.getUserId());
+		pd.setProperty("retryAfterSeconds", ex.getRetryAfterSeconds());
+
+		var headers = new HttpHeaders();
+		headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).headers(headers).body(pd);
+	}
+
+	// 실행기 포화(TaskRejectedException 포함) → 500 대신 503
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<ProblemDetail> handle(RejectedExecutionException ex) {
+		var pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+		pd.setTitle("Executor Saturated");
+		pd.setDetail(ex.getMessage());
+
+		var headers = new HttpHeaders();
+		headers.add(HttpHeaders.RETRY_AFTER, "1");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(headers).body(pd);
+	}
+
 }
@@ -1,6 +1,7 @@
 package ia_x_ai_hackathon.chatty_potato.common.filter;
 
 import ia_x_ai_hackathon.chatty_potato.common.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -31,12 +32,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = resolveToken(request);
 
         if (token != null) {
-            String userId = jwtUtil.getClaims(token).get("userId", String.class);
+            Claims claims = jwtUtil.getClaims(token);
+            String userId = claims.get("userId", String.class);
 
             UserDetails userDetails = User.builder()
                 .username(userId)
                 .password("")
-                .authorities("ROLE_GUEST")
+                .authorities("ROLE_" + JwtUtil.roleOf(claims))
                 .build();
 
             SecurityContextHolder.getContext().setAuthentication(
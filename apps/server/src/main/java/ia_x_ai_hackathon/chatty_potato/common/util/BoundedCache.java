@@ -0,0 +1,216 @@
+package ia_x_ai_hackathon.chatty_potato.common.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 크기 / TTL / 유휴시간 기준으로 항목을 내보내는 경량 in-process 캐시
+ *
+ * <p>정책:
+ * - maxSize 초과 시 가장 오래 접근되지 않은 항목부터 제거 (LRU)
+ * - ttl: 생성 시점 기준 만료 (0이면 비활성)
+ * - idleTimeout: 마지막 접근 시점 기준 만료 (0이면 비활성)
+ * - 만료 검사는 접근 시 + {@link #purgeExpired()} 호출 시 수행
+ *   (삽입 시 용량 초과면 LRU 머리부터 필요한 만큼만 제거 → 락 안 전체 순회 없음, 전체 정리는 주기적 purge 담당)
+ *
+ * <p>제거된 항목은 락 밖에서 {@link RemovalListener}로 통지된다.
+ */
+public final class BoundedCache<K, V> {
+
+	public enum RemovalCause { EXPLICIT, SIZE, EXPIRED }
+
+	@FunctionalInterface
+	public interface RemovalListener<K, V> {
+		void onRemoval(K key, V value, RemovalCause cause);
+	}
+
+	public record Stats(int size, long hits, long misses, long evictions, long expirations) {
+		public double hitRatio() {
+			long total = hits + misses;
+			return total == 0 ? 0.0 : (double) hits / total;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheStats{size=%d, hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, expirations=%d}"
+					.formatted(size, hits, misses, hitRatio(), evictions, expirations);
+		}
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		final long createdNanos;
+		long lastAccessNanos;
+
+		Entry(V value, long createdNanos, long now) {
+			this.value = value;
+			this.createdNanos = createdNanos;
+			this.lastAccessNanos = now;
+		}
+	}
+
+	private record Removal<K, V>(K key, V value, RemovalCause cause) {}
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final long idleNanos;
+	private final RemovalListener<K, V> listener;
+	private final LongSupplier ticker;
+
+	// access-order LinkedHashMap: 맨 앞이 LRU
+	private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	public BoundedCache(int maxSize, Duration ttl, Duration idleTimeout, RemovalListener<K, V> listener) {
+		this(maxSize, ttl, idleTimeout, listener, System::nanoTime);
+	}
+
+	BoundedCache(int maxSize, Duration ttl, Duration idleTimeout,
+				 RemovalListener<K, V> listener, LongSupplier ticker) {
+		if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be > 0");
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+		this.idleNanos = idleTimeout == null ? 0 : idleTimeout.toNanos();
+		this.listener = listener;
+		this.ticker = ticker;
+	}
+
+	/** 조회 (만료 항목은 제거 후 null) */
+	public V get(K key) {
+		List<Removal<K, V>> removed = new ArrayList<>(1);
+		V value;
+		synchronized (map) {
+			long now = ticker.getAsLong();
+			Entry<V> e = map.get(key);
+			if (e != null && isExpired(e, now)) {
+				map.remove(key);
+				removed.add(new Removal<>(key, e.value, RemovalCause.EXPIRED));
+				e = null;
+			}
+			if (e == null) {
+				value = null;
+			} else {
+				e.lastAccessNanos = now;
+				value = e.value;
+			}
+		}
+		(value == null ? misses : hits).incrementAndGet();
+		notifyRemovals(removed);
+		return value;
+	}
+
+	/** 삽입 (동일 키는 교체, 용량 초과 시 LRU 순으로 제거) */
+	public void put(K key, V value) {
+		put(key, value, Duration.ZERO);
+	}
+
+	/**
+	 * 이미 age 만큼 지난 항목으로 삽입 (TTL은 남은 시간만 적용)
+	 * → 디스크 등에서 복원한 항목이 재시작마다 TTL을 새로 받지 않도록
+	 */
+	public void put(K key, V value, Duration age) {
+		List<Removal<K, V>> removed = new ArrayList<>(1);
+		synchronized (map) {
+			long now = ticker.getAsLong();
+			long ageNanos = age == null || age.isNegative() ? 0 : age.toNanos();
+			Entry<V> prev = map.put(key, new Entry<>(value, now - ageNanos, now));
+			if (prev != null && prev.value != value) {
+				removed.add(new Removal<>(key, prev.value, RemovalCause.EXPLICIT));
+			}
+			// O(1) per eviction: 머리(LRU)만 제거, 이미 만료된 항목이면 EXPIRED 로 집계
+			Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+			while (map.size() > maxSize && it.hasNext()) {
+				Map.Entry<K, Entry<V>> eldest = it.next();
+				it.remove();
+				RemovalCause cause = isExpired(eldest.getValue(), now) ? RemovalCause.EXPIRED : RemovalCause.SIZE;
+				removed.add(new Removal<>(eldest.getKey(), eldest.getValue().value, cause));
+			}
+		}
+		notifyRemovals(removed);
+	}
+
+	/** 명시적 제거 */
+	public V remove(K key) {
+		Entry<V> e;
+		synchronized (map) {
+			e = map.remove(key);
+		}
+		if (e == null) return null;
+		notifyRemovals(List.of(new Removal<>(key, e.value, RemovalCause.EXPLICIT)));
+		return e.value;
+	}
+
+	/** 만료 항목 일괄 정리 (주기적 호출용) */
+	public int purgeExpired() {
+		List<Removal<K, V>> removed = new ArrayList<>();
+		synchronized (map) {
+			collectExpired(ticker.getAsLong(), removed);
+		}
+		notifyRemovals(removed);
+		return removed.size();
+	}
+
+	/** 스냅샷 순회 (LRU → MRU 순, 만료/접근시간 갱신 없음) */
+	public List<Map.Entry<K, V>> entries() {
+		synchronized (map) {
+			List<Map.Entry<K, V>> out = new ArrayList<>(map.size());
+			for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+				out.add(Map.entry(e.getKey(), e.getValue().value));
+			}
+			return out;
+		}
+	}
+
+	public int size() {
+		synchronized (map) {
+			return map.size();
+		}
+	}
+
+	public int maxSize() {
+		return maxSize;
+	}
+
+	public Stats stats() {
+		return new Stats(size(), hits.get(), misses.get(), evictions.get(), expirations.get());
+	}
+
+	private void collectExpired(long now, List<Removal<K, V>> removed) {
+		Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<K, Entry<V>> me = it.next();
+			if (isExpired(me.getValue(), now)) {
+				it.remove();
+				removed.add(new Removal<>(me.getKey(), me.getValue().value, RemovalCause.EXPIRED));
+			}
+		}
+	}
+
+	private boolean isExpired(Entry<V> e, long now) {
+		return (ttlNanos > 0 && now - e.createdNanos >= ttlNanos)
+				|| (idleNanos > 0 && now - e.lastAccessNanos >= idleNanos);
+	}
+
+	private void notifyRemovals(List<Removal<K, V>> removed) {
+		for (Removal<K, V> r : removed) {
+			switch (r.cause()) {
+				case SIZE -> evictions.incrementAndGet();
+				case EXPIRED -> expirations.incrementAndGet();
+				default -> { }
+			}
+			if (listener != null) {
+				listener.onRemoval(r.key(), r.value(), r.cause());
+			}
+		}
+	}
+}
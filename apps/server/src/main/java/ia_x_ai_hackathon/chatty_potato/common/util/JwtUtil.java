@@ -15,6 +15,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtUtil {
 
+    // 권한 claim: 없거나 알 수 없는 값이면 GUEST (ADMIN 토큰은 /api/auth/guest 로 발급되지 않음)
+    public static final String ROLE_CLAIM = "role";
+    public static final String ROLE_GUEST = "GUEST";
+    public static final String ROLE_ADMIN = "ADMIN";
+
     private final SecretKey secretKey;
     private final long accessTokenExpiration;
 
@@ -25,21 +30,32 @@ public class JwtUtil {
     }
 
     public String createAccessToken(String userId) {
-        return createToken(userId, accessTokenExpiration);
+        return createAccessToken(userId, ROLE_GUEST);
+    }
+
+    public String createAccessToken(String userId, String role) {
+        return createToken(userId, role, accessTokenExpiration);
     }
 
-    private String createToken(String userId, long expiration) {
+    private String createToken(String userId, String role, long expiration) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
             .claim("userId", userId)
+            .claim(ROLE_CLAIM, role)
             .issuedAt(now)
             .expiration(expiryDate)
             .signWith(secretKey)
             .compact();
     }
 
+    /** 토큰의 권한 (GUEST / ADMIN 외 값은 GUEST 로 취급) */
+    public static String roleOf(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        return ROLE_ADMIN.equals(role) ? ROLE_ADMIN : ROLE_GUEST;
+    }
+
     public Claims getClaims(String token) {
         return Jwts.parser()
             .verifyWith(secretKey)
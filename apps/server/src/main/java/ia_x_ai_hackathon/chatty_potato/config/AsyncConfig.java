@@ -1,24 +1,118 @@
 package ia_x_ai_hackathon.chatty_potato.config;
 
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.concurrent.Executor;
 
+/**
+ * 파이프라인 실행기 설정
+ *
+ * <p>rag.executor.mode
+ * - platform (기본): 크기/큐가 제한된 ThreadPoolTaskExecutor
+ * - virtual: 작업당 가상 스레드 → 동시성 상한은 DownstreamLimiter(LLM/임베딩/ES)가 담당
+ * <p>서블릿 컨테이너 요청 처리의 가상 스레드 전환은 Boot 의 spring.threads.virtual.enabled=true 로 한다.
+ * 이 값이 켜져 있고 rag.executor.mode 를 따로 지정하지 않으면 파이프라인 실행기도 virtual 로 맞춘다.
+ *
+ * <p>모든 실행기는 큐 대기 시간과 실행 시간을 분리해 기록한다
+ * (rag.executor.queue.wait / rag.executor.execution, executor 태그)
+ * 제출 스레드의 observation/trace 컨텍스트는 작업 스레드로 전파된다.
+ */
+@Slf4j
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+@RequiredArgsConstructor
+public class AsyncConfig implements WebMvcConfigurer {
+
+	private final RagMetrics ragMetrics;
+	private final TaskDecorator contextPropagation = new ContextPropagatingTaskDecorator();
+
+	// 비동기 응답(CompletableFuture) 최대 대기: 프롬프트 대기 + 생성 시간을 모두 포함해야 함
+	@Value("${rag.web.async-timeout-millis:60000}")
+	private long asyncTimeoutMillis;
+
+	@Value("${rag.executor.mode:#{'${spring.threads.virtual.enabled:false}' == 'true' ? 'virtual' : 'platform'}}")
+	private String executorMode;
+
 	@Bean(name = "ragExecutor")
 	public Executor ragExecutor() {
+		return executor("rag-async", 4, 8, 100);
+	}
+
+	/** 프롬프트 빌드 단계 전용 (검색/요약/조립, rewrite 응답과 분리) */
+	@Bean(name = "promptBuildExecutor")
+	public Executor promptBuildExecutor() {
+		return executor("rag-prompt", 8, 16, 100);
+	}
+
+	/** 하이 라우트 LLM 생성 전용 (요청 스레드와 분리) */
+	@Bean(name = "generationExecutor")
+	public Executor generationExecutor() {
+		return executor("rag-gen", 8, 32, 200);
+	}
+
+	/** 문서 요약 LLM 호출 fan-out 전용 (bounded) */
+	@Bean(name = "summarizationExecutor")
+	public Executor summarizationExecutor() {
+		return executor("rag-sum", 8, 16, 64);
+	}
+
+	/** 대량 색인 _bulk 요청 전용 (동시 진행 수는 rag.ingest.bulk.max-in-flight 가 제한) */
+	@Bean(name = "bulkIndexExecutor")
+	public Executor bulkIndexExecutor() {
+		return executor("rag-bulk", 4, 8, 32);
+	}
+
+	private Executor executor(String name, int core, int max, int queue) {
+		if ("virtual".equalsIgnoreCase(executorMode)) {
+			SimpleAsyncTaskExecutor ex = new SimpleAsyncTaskExecutor(name + "-");
+			ex.setVirtualThreads(true);
+			ex.setTaskDecorator(timed(name));
+			log.info("🧵 {} executor: virtual threads", name);
+			return ex;
+		}
+
 		ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
-		ex.setCorePoolSize(4);
-		ex.setMaxPoolSize(8);
-		ex.setQueueCapacity(100);
-		ex.setThreadNamePrefix("rag-async-");
+		ex.setCorePoolSize(core);
+		ex.setMaxPoolSize(max);
+		ex.setQueueCapacity(queue);
+		ex.setThreadNamePrefix(name + "-");
+		ex.setTaskDecorator(timed(name));
 		ex.initialize();
 		return ex;
 	}
 
+	/** 제출 시점 → 실행 시작(큐 대기), 실행 시작 → 종료(실행) 분리 측정 + trace 컨텍스트 전파 */
+	private TaskDecorator timed(String executorName) {
+		return task -> {
+			Runnable propagated = contextPropagation.decorate(task);
+			long enqueuedAt = System.nanoTime();
+			return () -> {
+				long startedAt = System.nanoTime();
+				ragMetrics.recordQueueWait(executorName, startedAt - enqueuedAt);
+				try {
+					propagated.run();
+				} finally {
+					ragMetrics.recordExecution(executorName, System.nanoTime() - startedAt);
+				}
+			};
+		};
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setDefaultTimeout(asyncTimeoutMillis);
+	}
+
 }
@@ -0,0 +1,104 @@
+package ia_x_ai_hackathon.chatty_potato.config;
+
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.PromptBuildStage;
+import ia_x_ai_hackathon.chatty_potato.rag.service.AdmissionController;
+import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SemanticAnswerCache;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SummarizationService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SummaryCache;
+import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 캐시 / 요약 / 폴백 카운터를 actuator(Prometheus)에 노출
+ *
+ * <p>각 컴포넌트가 이미 들고 있는 카운터를 FunctionCounter/Gauge로 읽기만 한다 (핫패스 추가 비용 없음).
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public MeterBinder ragMeterBinder(
+			EmbeddingService embeddingService,
+			SummaryCache summaryCache,
+			SemanticAnswerCache semanticAnswerCache,
+			SummarizationService summarizationService,
+			InMemoryStore inMemoryStore,
+			PromptBuildStage promptBuildStage,
+			AdmissionController admissionController
+	) {
+		return registry -> {
+			bindCache(registry, "embedding", embeddingService, EmbeddingService::cacheStats);
+			bindCache(registry, "summary", summaryCache, SummaryCache::stats);
+			bindCache(registry, "task-slot", inMemoryStore, InMemoryStore::stats);
+
+			FunctionCounter.builder("rag.cache.requests", semanticAnswerCache, SemanticAnswerCache::hits)
+					.tags("cache", "semantic-answer", "result", "hit").register(registry);
+			FunctionCounter.builder("rag.cache.requests", semanticAnswerCache, SemanticAnswerCache::misses)
+					.tags("cache", "semantic-answer", "result", "miss").register(registry);
+
+			FunctionCounter.builder("rag.embedding.zero_vector_fallbacks", embeddingService,
+							EmbeddingService::zeroVectorFallbacks)
+					.description("Embedding failures answered with the zero vector")
+					.register(registry);
+
+			FunctionTimer.builder("rag.summarization.calls", summarizationService,
+							SummarizationService::invocations, SummarizationService::invocationNanos,
+							TimeUnit.NANOSECONDS)
+					.description("LLM summarization invocations")
+					.register(registry);
+			FunctionCounter.builder("rag.summarization.coalesced", summarizationService,
+							SummarizationService::coalesced)
+					.description("Summaries served by joining an in-flight LLM call")
+					.register(registry);
+
+			Gauge.builder("rag.prompt_build.pending", promptBuildStage, s -> s.stats().pending())
+					.register(registry);
+			FunctionCounter.builder("rag.prompt_build.rejected", promptBuildStage, s -> s.stats().rejected())
+					.register(registry);
+			for (PromptBuildStage.SpeculationOutcome outcome : PromptBuildStage.SpeculationOutcome.values()) {
+				FunctionCounter.builder("rag.speculative.outcomes", promptBuildStage, s -> s.speculationCount(outcome))
+						.tag("outcome", outcome.name().toLowerCase()).register(registry);
+			}
+			Gauge.builder("rag.speculative.reuse_rate", promptBuildStage, PromptBuildStage::speculativeReuseRate)
+					.description("Share of speculative retrievals whose results were reused")
+					.register(registry);
+
+			for (AdmissionController.Stage stage : AdmissionController.Stage.values()) {
+				String tag = stage.name().toLowerCase();
+				Gauge.builder("rag.admission.limit", admissionController, a -> a.snapshot(stage).limit())
+						.tag("stage", tag).register(registry);
+				Gauge.builder("rag.admission.in_flight", admissionController, a -> a.snapshot(stage).inFlight())
+						.tag("stage", tag).register(registry);
+			}
+		};
+	}
+
+	/**
+	 * Micrometer 는 상태 객체를 약한 참조로만 잡으므로 반드시 수명이 긴 소유 빈을 넘긴다
+	 * (임시 람다/메서드 참조를 넘기면 GC 후 NaN / 카운터 정지)
+	 */
+	private static <T> void bindCache(MeterRegistry registry, String cache, T owner,
+									  Function<T, BoundedCache.Stats> stats) {
+		FunctionCounter.builder("rag.cache.requests", owner, o -> stats.apply(o).hits())
+				.tags("cache", cache, "result", "hit").register(registry);
+		FunctionCounter.builder("rag.cache.requests", owner, o -> stats.apply(o).misses())
+				.tags("cache", cache, "result", "miss").register(registry);
+		FunctionCounter.builder("rag.cache.evictions", owner, o -> {
+					BoundedCache.Stats st = stats.apply(o);
+					return st.evictions() + st.expirations();
+				})
+				.tag("cache", cache).register(registry);
+		Gauge.builder("rag.cache.size", owner, o -> stats.apply(o).size())
+				.tag("cache", cache).register(registry);
+	}
+}
@@ -0,0 +1,66 @@
+package ia_x_ai_hackathon.chatty_potato.config;
+
+import ia_x_ai_hackathon.chatty_potato.rag.service.BpeTokenizer;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenCounter;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * TokenCounter 모드 설정
+ *
+ * <p>rag.tokenizer.mode
+ * - heuristic (기본): 문자 종류 기반 추정
+ * - bpe: rag.tokenizer.vocab-location 의 tiktoken 어휘로 실제 토큰 수 계산
+ *   (rag.tokenizer.encoding=cl100k|o200k, 어휘가 없거나 깨져 있으면 heuristic 으로 폴백)
+ */
+@Slf4j
+@Configuration
+public class TokenizerConfig {
+
+	private final ResourceLoader resourceLoader;
+	private final String mode;
+	private final String encoding;
+	private final String vocabLocation;
+
+	public TokenizerConfig(
+			ResourceLoader resourceLoader,
+			@Value("${rag.tokenizer.mode:heuristic}") String mode,
+			@Value("${rag.tokenizer.encoding:cl100k}") String encoding,
+			@Value("${rag.tokenizer.vocab-location:classpath:tokenizer/cl100k_base.tiktoken}") String vocabLocation
+	) {
+		this.resourceLoader = resourceLoader;
+		this.mode = mode;
+		this.encoding = encoding;
+		this.vocabLocation = vocabLocation;
+	}
+
+	@PostConstruct
+	void installTokenizer() {
+		if (!"bpe".equalsIgnoreCase(mode)) {
+			TokenCounter.install(null);
+			log.info("🔢 TokenCounter mode=heuristic");
+			return;
+		}
+
+		Resource vocab = resourceLoader.getResource(vocabLocation);
+		if (!vocab.exists()) {
+			log.warn("⚠️ BPE vocab not found ({}), falling back to heuristic token counting", vocabLocation);
+			return;
+		}
+		try (InputStream in = vocab.getInputStream()) {
+			BpeTokenizer tokenizer = BpeTokenizer.load(in,
+					BpeTokenizer.Encoding.valueOf(encoding.toUpperCase(Locale.ROOT)));
+			TokenCounter.install(tokenizer);
+			log.info("🔢 TokenCounter mode=bpe (encoding={}, vocab={} entries)", encoding, tokenizer.vocabSize());
+		} catch (IOException | IllegalArgumentException e) {
+			log.warn("⚠️ BPE vocab load failed ({}): {} — falling back to heuristic", vocabLocation, e.getMessage());
+		}
+	}
+}
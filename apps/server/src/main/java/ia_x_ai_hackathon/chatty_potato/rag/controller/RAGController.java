@@ -1,14 +1,25 @@
 package ia_x_ai_hackathon.chatty_potato.rag.controller;
 
 import ia_x_ai_hackathon.chatty_potato.common.resolver.UserId;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.BulkIngestStatusDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestReqDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestResDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RagResultDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RewriteReqDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RewriteResDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RouteReqDto;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.RagPipelineService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.BulkIngestionService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DocumentIngestionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/rag")
@@ -16,22 +27,54 @@ import org.springframework.web.bind.annotation.*;
 public class RAGController {
 
 	private final RagPipelineService ragPipelineService;
+	private final DocumentIngestionService documentIngestionService;
+	private final BulkIngestionService bulkIngestionService;
 
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	public RewriteResDto rewriteQuery(@UserId String userId, @RequestBody RewriteReqDto rewriteReqDto) {
-		return ragPipelineService.rewriteQuery(userId, rewriteReqDto.query());
+		return ragPipelineService.rewriteQuery(userId, rewriteReqDto.query(), rewriteReqDto.isLow());
 	}
 
 	@PostMapping("/route")
 	@ResponseStatus(HttpStatus.OK)
-	public RagResultDto high(
+	public CompletableFuture<RagResultDto> high(
+			@UserId String userId,
+			@RequestBody RouteReqDto routeReqDto,
+			@RequestParam(defaultValue = "10000") long waitMillis
+	) {
+		return ragPipelineService.produceAsync(userId, routeReqDto.taskId(), routeReqDto.isLow(), waitMillis);
+	}
+
+	@PostMapping(value = "/route/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> highStream(
 			@UserId String userId,
 			@RequestBody RouteReqDto routeReqDto,
-			@RequestParam(defaultValue = "10000") long waitMillis,
-			@RequestParam(defaultValue = "200") long stepMillis
+			@RequestParam(defaultValue = "10000") long waitMillis
 	) {
-		return ragPipelineService.produce(userId, routeReqDto.taskId(), routeReqDto.isLow(),waitMillis, stepMillis);
+		return ragPipelineService.produceStream(userId, routeReqDto.taskId(), waitMillis);
+	}
+
+	@PostMapping("/documents")
+	@ResponseStatus(HttpStatus.CREATED)
+	public DocumentIngestResDto ingestDocument(@RequestBody DocumentIngestReqDto documentIngestReqDto) {
+		return documentIngestionService.ingest(documentIngestReqDto);
+	}
+
+	// 본문: 한 줄에 문서 JSON 하나 (NDJSON/JSONL), 본문을 끝까지 읽고 색인이 끝나면 응답
+	@PostMapping(value = "/documents/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl"})
+	@ResponseStatus(HttpStatus.OK)
+	public BulkIngestStatusDto bulkIngest(
+			@RequestParam(required = false) String jobId,
+			InputStream body
+	) {
+		return bulkIngestionService.ingest(jobId, body);
+	}
+
+	// 진행 중/완료된 대량 색인 상태 (jobId 를 지정해 올린 경우 업로드 중에도 조회 가능)
+	@GetMapping("/documents/bulk/{jobId}")
+	public BulkIngestStatusDto bulkIngestStatus(@PathVariable String jobId) {
+		return bulkIngestionService.status(jobId);
 	}
 
 }
@@ -0,0 +1,18 @@
+package ia_x_ai_hackathon.chatty_potato.rag.dto;
+
+import java.util.List;
+
+public record BulkIngestStatusDto(
+		String jobId,
+		String state,          // RUNNING / COMPLETED / FAILED
+		long lines,            // 읽은 비어 있지 않은 줄 수
+		long documents,        // 청크 분할까지 끝난 문서 수
+		long chunks,           // 생성된 청크 수
+		long indexedChunks,    // _bulk 색인 성공
+		long skippedChunks,    // 임베딩 실패(제로 벡터)로 제외
+		long failedChunks,     // _bulk 색인 실패
+		long failedLines,      // 파싱 실패/빈 본문
+		List<String> errors,   // 앞쪽 오류 일부
+		long elapsedMillis
+) {
+}
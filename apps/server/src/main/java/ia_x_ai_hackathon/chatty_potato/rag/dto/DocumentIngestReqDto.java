@@ -0,0 +1,9 @@
+package ia_x_ai_hackathon.chatty_potato.rag.dto;
+
+public record DocumentIngestReqDto(
+		String id,        // 선택: 원문 문서 id (없으면 생성, 같은 id 재요청 시 재색인)
+		String title,
+		String content,
+		String url
+) {
+}
@@ -0,0 +1,8 @@
+package ia_x_ai_hackathon.chatty_potato.rag.dto;
+
+public record DocumentIngestResDto(
+		String parentId,
+		int chunks,
+		int totalTokens
+) {
+}
@@ -1,18 +1,42 @@
 package ia_x_ai_hackathon.chatty_potato.rag.dto;
 
+import ia_x_ai_hackathon.chatty_potato.rag.store.CompactVector;
+
+/**
+ * 임베딩 결과
+ *
+ * <p>벡터는 읽기 전용 {@link CompactVector}로 공유한다 (생성/조회 시 복사 없음).
+ * 검색 핫패스는 {@code values().asList()}로 ES에 바로 전달한다.
+ */
 public record EmbeddingResultDto(
         String id,
-        float[] vector,
+        CompactVector values,
         int dims
 ) {
-    // ⚠️ float[] 은 mutable이므로 방어적 복사 권장
+    /** 임베딩 실패 시 반환되는 제로 벡터의 id */
+    public static final String ZERO_ID = "zero";
+
     public EmbeddingResultDto {
-        vector = vector == null ? new float[0] : vector.clone();
+        values = values == null ? CompactVector.copyOf(null) : values;
+    }
+
+    // float[] 입력은 방어적 복사
+    public EmbeddingResultDto(String id, float[] vector, int dims) {
+        this(id, CompactVector.copyOf(vector), dims);
     }
 
-    // getter override로 방어적 복사
-    @Override
+    /** 임베딩 실패(제로 벡터) 여부 — 색인/캐시 조회에서 제외 대상 */
+    public boolean isZero() {
+        return ZERO_ID.equals(id);
+    }
+
+    /** 호환용 복사본 (핫패스에서는 values() 사용) */
     public float[] vector() {
-        return vector.clone();
+        return values.toArray();
+    }
+
+    /** off-heap 저장본으로 교체한 사본 (캐시 보관용) */
+    public EmbeddingResultDto offHeap() {
+        return values.isOffHeap() ? this : new EmbeddingResultDto(id, values.toOffHeap(), dims);
     }
-}
\ No newline at end of file
+}
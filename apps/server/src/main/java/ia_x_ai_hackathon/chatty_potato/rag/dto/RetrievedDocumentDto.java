@@ -1,20 +1,42 @@
 package ia_x_ai_hackathon.chatty_potato.rag.dto;
 
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenCounter;
 import lombok.Builder;
 
+/**
+ * 검색 결과 문서
+ * - tokenCount: snippet 토큰 수 (색인 시 저장된 값 사용, 없으면 생성 시 1회 계산)
+ *   snippet이 바뀌면 {@link #withSnippet}으로 새로 만들어 다시 계산된다.
+ */
 @Builder
 public record RetrievedDocumentDto(
         String id,
         String title,
         String snippet,
         String url,
-        double score
+        double score,
+        Integer tokenCount
 ) {
+    public RetrievedDocumentDto {
+        if (tokenCount == null || tokenCount < 0) {
+            tokenCount = TokenCounter.count(snippet);
+        }
+    }
+
+    public RetrievedDocumentDto(String id, String title, String snippet, String url, double score) {
+        this(id, title, snippet, url, score, null);
+    }
+
+    /** snippet 교체 (토큰 수 재계산) */
+    public RetrievedDocumentDto withSnippet(String newSnippet) {
+        return new RetrievedDocumentDto(id, title, newSnippet, url, score, null);
+    }
+
     @Override
     public String toString() {
         String sn = snippet == null ? "" :
                 (snippet.length() > 120 ? snippet.substring(0, 120) + "..." : snippet);
-        return "Doc{id='%s', score=%.3f, title='%s', snip='%s'}"
-                .formatted(id, score, title, sn);
+        return "Doc{id='%s', score=%.3f, tokens=%d, title='%s', snip='%s'}"
+                .formatted(id, score, tokenCount, title, sn);
     }
 }
@@ -1,6 +1,7 @@
 package ia_x_ai_hackathon.chatty_potato.rag.dto;
 
 public record RewriteReqDto(
-		String query
+		String query,
+		Boolean isLow     // 선택: 라우트 힌트 (context 예산 산정용, null 이면 기본값)
 ) {
 }
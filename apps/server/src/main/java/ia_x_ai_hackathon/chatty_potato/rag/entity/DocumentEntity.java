@@ -23,6 +23,17 @@ public class DocumentEntity {
     @Field(type = FieldType.Keyword)
     private String url;
 
+    // content 토큰 수 (색인 시 미리 계산 → 검색 후 재토큰화 생략)
+    @Field(type = FieldType.Integer)
+    private Integer tokenCount;
+
+    // 청크 색인: 원문 문서 id와 원문 내 순번 (청크 id = parentId#chunkIndex)
+    @Field(type = FieldType.Keyword)
+    private String parentId;
+
+    @Field(type = FieldType.Integer)
+    private Integer chunkIndex;
+
     // ES 매핑은 인덱스 생성시 index/similarity 옵션까지 반드시 지정하세요.
     @Field(type = FieldType.Dense_Vector, dims = 1024)
     private float[] embedding;
@@ -0,0 +1,45 @@
+package ia_x_ai_hackathon.chatty_potato.rag.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.util.List;
+import java.util.Map;
+
+// 시맨틱 답변 캐시 전용 인덱스 (지식 문서 인덱스와 분리 → 검색 결과에 캐시 답변이 섞이지 않음)
+@Document(indexName = "semantic-answer-cache")
+@Getter @Builder
+@NoArgsConstructor @AllArgsConstructor
+public class SemanticCacheEntity {
+
+    @Id
+    private String id;
+
+    // 캐시 소유 사용자 (조회 시 필터)
+    @Field(type = FieldType.Keyword)
+    private String userId;
+
+    // 재작성 질의 (임베딩 기준)
+    @Field(type = FieldType.Text)
+    private String query;
+
+    @Field(type = FieldType.Text, index = false)
+    private String originalQuery;
+
+    @Field(type = FieldType.Text, index = false)
+    private String answer;
+
+    // 인용 목록은 저장만 (검색 대상 아님)
+    @Field(type = FieldType.Object, enabled = false)
+    private List<Map<String, Object>> citations;
+
+    @Field(type = FieldType.Long)
+    private Long createdAtEpoch;
+
+    // ES 매핑은 인덱스 생성시 index/similarity 옵션까지 반드시 지정하세요.
+    @Field(type = FieldType.Dense_Vector, dims = 1024)
+    private float[] embedding;
+}
@@ -0,0 +1,19 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+	private final String stage;
+	private final String userId;
+	private final String reason;
+	private final long retryAfterSeconds;
+
+	public AdmissionRejectedException(String stage, String userId, String reason, long retryAfterSeconds) {
+		super("Too many in-flight " + stage + " requests (" + reason + ")");
+		this.stage = stage;
+		this.userId = userId;
+		this.reason = reason;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
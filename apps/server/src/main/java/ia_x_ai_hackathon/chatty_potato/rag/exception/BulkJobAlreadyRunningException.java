@@ -0,0 +1,12 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BulkJobAlreadyRunningException extends RuntimeException {
+	private final String jobId;
+	public BulkJobAlreadyRunningException(String jobId) {
+		super("Bulk ingest job is already running");
+		this.jobId = jobId;
+	}
+}
@@ -0,0 +1,12 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BulkJobNotFoundException extends RuntimeException {
+	private final String jobId;
+	public BulkJobNotFoundException(String jobId) {
+		super("Bulk ingest job not found");
+		this.jobId = jobId;
+	}
+}
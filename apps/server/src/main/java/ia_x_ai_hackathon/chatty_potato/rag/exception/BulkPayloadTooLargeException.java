@@ -0,0 +1,14 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BulkPayloadTooLargeException extends RuntimeException {
+	private final String jobId;
+	private final long maxBytes;
+	public BulkPayloadTooLargeException(String jobId, long maxBytes) {
+		super("Bulk ingest body exceeds " + maxBytes + " bytes");
+		this.jobId = jobId;
+		this.maxBytes = maxBytes;
+	}
+}
@@ -0,0 +1,15 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class DownstreamBusyException extends RuntimeException {
+	private final String downstream;
+	private final long waitedMillis;
+
+	public DownstreamBusyException(String downstream, long waitedMillis) {
+		super(downstream + " concurrency limit reached (waited " + waitedMillis + " ms)");
+		this.downstream = downstream;
+		this.waitedMillis = waitedMillis;
+	}
+}
@@ -0,0 +1,14 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class EmbeddingUnavailableException extends RuntimeException {
+	private final String documentId;
+	private final int failedChunks;
+	public EmbeddingUnavailableException(String documentId, int failedChunks) {
+		super("Embedding failed for " + failedChunks + " chunk(s) of document " + documentId + "; nothing was indexed");
+		this.documentId = documentId;
+		this.failedChunks = failedChunks;
+	}
+}
@@ -0,0 +1,7 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+public class GenerationFailedException extends RuntimeException {
+	public GenerationFailedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
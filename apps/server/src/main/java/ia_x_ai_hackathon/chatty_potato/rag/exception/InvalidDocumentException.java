@@ -0,0 +1,12 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidDocumentException extends RuntimeException {
+	private final String documentId;
+	public InvalidDocumentException(String documentId, String message) {
+		super(message);
+		this.documentId = documentId;
+	}
+}
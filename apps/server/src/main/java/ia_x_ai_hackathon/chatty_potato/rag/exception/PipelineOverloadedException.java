@@ -0,0 +1,15 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PipelineOverloadedException extends RuntimeException {
+	private final String stage;
+	private final long retryAfterSeconds;
+
+	public PipelineOverloadedException(String stage, long retryAfterSeconds) {
+		super("Pipeline stage '" + stage + "' is overloaded, retry after " + retryAfterSeconds + " s");
+		this.stage = stage;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
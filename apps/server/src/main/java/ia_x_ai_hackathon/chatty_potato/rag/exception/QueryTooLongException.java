@@ -0,0 +1,18 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class QueryTooLongException extends RuntimeException {
+	private final String profile;
+	private final int queryTokens;
+	private final int availableTokens;
+
+	public QueryTooLongException(String profile, int queryTokens, int availableTokens) {
+		super("Query needs " + queryTokens + " tokens but only " + availableTokens
+				+ " fit the " + profile + " model input budget");
+		this.profile = profile;
+		this.queryTokens = queryTokens;
+		this.availableTokens = availableTokens;
+	}
+}
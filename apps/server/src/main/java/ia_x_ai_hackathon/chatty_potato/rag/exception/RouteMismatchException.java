@@ -0,0 +1,15 @@
+package ia_x_ai_hackathon.chatty_potato.rag.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RouteMismatchException extends RuntimeException {
+	private final String userId, taskId;
+	private final String builtFor, requestedRoute;
+
+	public RouteMismatchException(String userId, String taskId, String builtFor, String requestedRoute) {
+		super("Prompt was budgeted for the " + builtFor + " model and does not fit the " + requestedRoute + " route");
+		this.userId = userId; this.taskId = taskId;
+		this.builtFor = builtFor; this.requestedRoute = requestedRoute;
+	}
+}
@@ -0,0 +1,307 @@
+package ia_x_ai_hackathon.chatty_potato.rag.pipe;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.PromptAssemblyDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.PipelineOverloadedException;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.AugmentedChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.GeneratorChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RetrieverChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagMetrics;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagTracing;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy.TokenAllocation;
+import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🧱 프롬프트 빌드 단계 (Retrieval → Augmentation → Prompt assembly)
+ *
+ * <p>rewrite 응답 이후 promptBuildExecutor에서 비동기로 실행되어 슬롯의 promptFuture를 완료한다.
+ * - back-pressure: 대기+실행 중 작업이 maxPending 이상이거나 실행기가 거부하면
+ *   {@link PipelineOverloadedException} (503 + Retry-After)
+ * - 큐 대기/빌드 시간, 거부 수 등은 {@link #stats()}로 노출
+ * - 추측 검색 결과별 횟수/재사용률은 {@link #speculationCount}, {@link #speculativeReuseRate()}로 노출
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PromptBuildStage {
+
+	private final RetrieverChainService retrieverService;
+	private final AugmentedChainService augmentedService;
+	private final GeneratorChainService generatorService;
+	private final EmbeddingService embeddingService;
+	private final InMemoryStore inMemoryStore;
+	private final RagMetrics ragMetrics;
+	private final RagTracing ragTracing;
+
+	@Qualifier("promptBuildExecutor")
+	private final Executor promptBuildExecutor;
+	@Qualifier("ragExecutor")
+	private final Executor ragExecutor;
+
+	// 대기+실행 중 빌드 작업 상한 (초과 시 즉시 거절)
+	@Value("${rag.prompt-build.max-pending:200}")
+	private final int maxPending;
+
+	// 추측 검색: rewrite와 동시에 원 질의로 임베딩+kNN 수행
+	@Value("${rag.speculative.enabled:true}")
+	private final boolean speculativeEnabled;
+	// 원 질의/재작성 질의 임베딩 코사인이 이 값 이상이면 추측 결과 재사용
+	@Value("${rag.speculative.reuse-threshold:0.9}")
+	private final double speculativeReuseThreshold;
+	// 빌드 시 추측 검색 완료를 기다리는 최대 시간 (넘으면 재작성 질의로 검색)
+	@Value("${rag.speculative.wait-millis:2000}")
+	private final long speculativeWaitMillis;
+
+	private final AtomicInteger pending = new AtomicInteger();
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder queueWaitNanos = new LongAdder();
+	private final LongAdder buildNanos = new LongAdder();
+	private final Map<SpeculationOutcome, LongAdder> speculationOutcomes = outcomeCounters();
+
+	/** 추측 검색 결과 (재사용 / 유사도 미달 / 대기 초과 / 실패 / 쓰이기 전 취소) */
+	public enum SpeculationOutcome { REUSED, DISCARDED, TIMEOUT, FAILED, CANCELLED }
+
+	/** 원 질의 기준 추측 검색 결과 */
+	public record Speculation(EmbeddingResultDto embedding, List<RetrievedDocumentDto> docs) {}
+
+	/** 단계 지표 스냅샷 */
+	public record Stats(int pending, int maxPending, long submitted, long completed, long failed, long rejected,
+						double avgQueueWaitMillis, double avgBuildMillis) {}
+
+	/**
+	 * rewrite 동안 원 질의로 검색을 미리 시작 (비활성/포화 시 null)
+	 *
+	 * <p>future 취소는 실행 중인 작업을 멈추지 못하므로, 작업이 시작 전과 kNN 직전에 취소 여부를 확인한다
+	 * → 캐시 히트/예산 초과/대기 초과로 버려진 추측 검색이 ES 허가를 잡지 않음
+	 */
+	public CompletableFuture<Speculation> startSpeculation(String originalQuery) {
+		if (!speculativeEnabled || originalQuery == null || originalQuery.isBlank()) {
+			return null;
+		}
+		CompletableFuture<Speculation> speculation = new CompletableFuture<>();
+		try {
+			ragExecutor.execute(() -> {
+				try {
+					if (speculation.isDone()) return;   // 시작 전에 취소됨
+					EmbeddingResultDto embedding = embeddingService.embed(originalQuery);
+					if (speculation.isDone()) return;   // 임베딩 중 취소됨 → kNN 생략
+					speculation.complete(new Speculation(embedding,
+							retrieverService.retrieve(originalQuery, embedding, RetrieverChainService.DEFAULT_TOP_K)));
+				} catch (RuntimeException e) {
+					speculation.completeExceptionally(e);
+				}
+			});
+			return speculation;
+		} catch (RejectedExecutionException e) {
+			log.debug("⏭️ speculative retrieval skipped (executor saturated)");
+			return null;
+		}
+	}
+
+	/**
+	 * 쓰이지 않을 추측 검색 취소 (null 허용)
+	 * 아직 kNN 전이면 작업이 스스로 멈추고, 이미 끝났으면 아무 일도 하지 않는다.
+	 */
+	public void cancelSpeculation(CompletableFuture<Speculation> speculation) {
+		if (speculation != null && speculation.cancel(false)) {
+			speculationOutcomes.get(SpeculationOutcome.CANCELLED).increment();
+		}
+	}
+
+	public long speculationCount(SpeculationOutcome outcome) {
+		return speculationOutcomes.get(outcome).sum();
+	}
+
+	/** 결과가 정해진 추측 검색 중 재사용된 비율 (없으면 0) */
+	public double speculativeReuseRate() {
+		long total = 0;
+		for (LongAdder count : speculationOutcomes.values()) {
+			total += count.sum();
+		}
+		return total == 0 ? 0.0 : (double) speculationCount(SpeculationOutcome.REUSED) / total;
+	}
+
+	/**
+	 * 빌드 작업 등록 (고정 토큰 할당)
+	 */
+	public void submit(String userId, String taskId, String original, String rewritten,
+					   CompletableFuture<Speculation> speculation) {
+		submit(userId, taskId, original, rewritten, speculation, null);
+	}
+
+	/**
+	 * 빌드 작업 등록 (재작성 질의 임베딩 없음)
+	 */
+	public void submit(String userId, String taskId, String original, String rewritten,
+					   CompletableFuture<Speculation> speculation, TokenAllocation allocation) {
+		submit(userId, taskId, original, rewritten, speculation, allocation, null);
+	}
+
+	/**
+	 * 빌드 작업 등록 (즉시 반환)
+	 *
+	 * @param allocation         요청별 토큰 할당 (null 이면 고정 정책)
+	 * @param rewrittenEmbedding 호출 측이 이미 계산한 재작성 질의 임베딩 (null 이면 빌드 단계에서 계산)
+	 * @throws PipelineOverloadedException 대기 작업이 상한을 넘었거나 실행기가 거부한 경우
+	 */
+	public void submit(String userId, String taskId, String original, String rewritten,
+					   CompletableFuture<Speculation> speculation, TokenAllocation allocation,
+					   EmbeddingResultDto rewrittenEmbedding) {
+		if (pending.incrementAndGet() > maxPending) {
+			pending.decrementAndGet();
+			throw reject(userId, taskId);
+		}
+
+		long enqueuedAt = System.nanoTime();
+		try {
+			promptBuildExecutor.execute(() -> {
+				queueWaitNanos.add(System.nanoTime() - enqueuedAt);
+				try {
+					ragTracing.observe("rag.prompt-build", "prompt-build", taskId,
+							() -> build(userId, taskId, original, rewritten, speculation, allocation, rewrittenEmbedding));
+				} finally {
+					pending.decrementAndGet();
+				}
+			});
+			submitted.increment();
+		} catch (RejectedExecutionException e) {
+			pending.decrementAndGet();
+			throw reject(userId, taskId);
+		}
+	}
+
+	public Stats stats() {
+		long started = completed.sum() + failed.sum();
+		long accepted = submitted.sum();
+		return new Stats(
+				pending.get(),
+				maxPending,
+				accepted,
+				completed.sum(),
+				failed.sum(),
+				rejected.sum(),
+				accepted == 0 ? 0.0 : queueWaitNanos.sum() / 1e6 / accepted,
+				started == 0 ? 0.0 : buildNanos.sum() / 1e6 / started
+		);
+	}
+
+	private PipelineOverloadedException reject(String userId, String taskId) {
+		rejected.increment();
+		// 평균 빌드 시간 기준으로 재시도 시점 제안 (최소 1초)
+		long retryAfterSeconds = Math.max(1, (long) Math.ceil(stats().avgBuildMillis() / 1000.0));
+		log.warn("🚧 prompt build rejected (userId={}, taskId={}, pending={})", userId, taskId, pending.get());
+		return new PipelineOverloadedException("prompt-build", retryAfterSeconds);
+	}
+
+	private void build(String userId, String taskId, String original, String rewritten,
+					   CompletableFuture<Speculation> speculation, TokenAllocation allocation,
+					   EmbeddingResultDto rewrittenEmbedding) {
+		if (!inMemoryStore.markBuildStarted(userId, taskId)) {
+			log.debug("⏭️ prompt build already started (userId={}, taskId={})", userId, taskId);
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			List<RetrievedDocumentDto> retrievedDocs = ragMetrics.time("retrieve",
+					() -> retrieve(rewritten, speculation, rewrittenEmbedding));
+			log.debug("📚 Retrieved {} documents", retrievedDocs.size());
+
+			// 3️⃣ Augmentation
+			AugmentedContextDto augmented = ragMetrics.time("augment", () -> allocation == null
+					? augmentedService.assemble(retrievedDocs)
+					: augmentedService.assemble(retrievedDocs, allocation));
+			log.debug("🧩 Context assembled ({} chars)", augmented.contextText().length());
+
+			// 4️⃣ Prompt assembly
+			PromptAssemblyDto prompt = ragMetrics.time("prompt-assembly",
+					() -> generatorService.generatePrompt(original, rewritten, augmented));
+
+			inMemoryStore.completePrompt(userId, taskId, prompt, augmented);
+			completed.increment();
+			log.info("✅ prompt READY (userId={}, taskId={}, {} ms)", userId, taskId,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (Exception e) {
+			failed.increment();
+			log.error("❌ prompt build failed (userId={}, taskId={}): {}", userId, taskId, e.getMessage(), e);
+			inMemoryStore.failPrompt(userId, taskId, e.getMessage());
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			buildNanos.add(elapsed);
+			ragMetrics.record("prompt-build", elapsed);
+		}
+	}
+
+	private static Map<SpeculationOutcome, LongAdder> outcomeCounters() {
+		Map<SpeculationOutcome, LongAdder> counters = new EnumMap<>(SpeculationOutcome.class);
+		for (SpeculationOutcome outcome : SpeculationOutcome.values()) {
+			counters.put(outcome, new LongAdder());
+		}
+		return counters;
+	}
+
+	/**
+	 * 재작성 질의 임베딩이 원 질의와 충분히 가까우면 추측 검색 결과를 재사용하고,
+	 * 아니면 재작성 임베딩으로 다시 검색한다.
+	 * 재작성 임베딩이 전달됐으면(시맨틱 캐시 조회에 사용한 것) 다시 계산하지 않는다.
+	 * 추측 검색이 rag.speculative.wait-millis 안에 끝나지 않으면 취소하고 재작성 질의로 검색한다.
+	 */
+	private List<RetrievedDocumentDto> retrieve(String rewritten, CompletableFuture<Speculation> speculation,
+												EmbeddingResultDto precomputed) {
+		if (speculation == null && precomputed == null) {
+			return retrieverService.retrieve(rewritten);
+		}
+
+		EmbeddingResultDto rewrittenEmbedding = precomputed != null ? precomputed : embeddingService.embed(rewritten);
+		if (speculation == null) {
+			return retrieverService.retrieve(rewritten, rewrittenEmbedding, RetrieverChainService.DEFAULT_TOP_K);
+		}
+		try {
+			Speculation spec = speculation.get(speculativeWaitMillis, TimeUnit.MILLISECONDS);
+			double similarity = spec.embedding().values().cosine(rewrittenEmbedding.values());
+			if (similarity >= speculativeReuseThreshold) {
+				speculationOutcomes.get(SpeculationOutcome.REUSED).increment();
+				log.debug("🔮 speculative retrieval reused (sim={})", "%.3f".formatted(similarity));
+				return spec.docs();
+			}
+			speculationOutcomes.get(SpeculationOutcome.DISCARDED).increment();
+			log.debug("🔁 speculative retrieval discarded (sim={})", "%.3f".formatted(similarity));
+		} catch (TimeoutException e) {
+			// 느린 kNN/임베딩에 빌드 스레드가 묶이지 않도록 포기하고 재작성 질의로 검색 (kNN 전이면 작업도 멈춤)
+			speculation.cancel(false);
+			speculationOutcomes.get(SpeculationOutcome.TIMEOUT).increment();
+			log.debug("⌛ speculative retrieval not ready in {} ms, discarded", speculativeWaitMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			speculation.cancel(false);
+			speculationOutcomes.get(SpeculationOutcome.FAILED).increment();
+			log.warn("Speculative retrieval wait interrupted");
+		} catch (Exception e) {
+			speculationOutcomes.get(SpeculationOutcome.FAILED).increment();
+			log.warn("Speculative retrieval unusable: {}", e.getMessage());
+		}
+		return retrieverService.retrieve(rewritten, rewrittenEmbedding, RetrieverChainService.DEFAULT_TOP_K);
+	}
+}
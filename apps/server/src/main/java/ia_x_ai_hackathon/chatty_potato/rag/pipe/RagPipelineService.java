@@ -1,29 +1,39 @@
 package ia_x_ai_hackathon.chatty_potato.rag.pipe;
 
-import ia_x_ai_hackathon.chatty_potato.common.util.FuturePoller;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.*;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.PipelineOverloadedException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.PromptBuildFailedException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.PromptTimeoutException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.RouteMismatchException;
 import ia_x_ai_hackathon.chatty_potato.rag.exception.TaskNotFoundException;
-import ia_x_ai_hackathon.chatty_potato.rag.exception.TimeoutException;
-import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.AugmentedChainService;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.GeneratorChainService;
-import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RetrieverChainService;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RewriteChainService;
 import ia_x_ai_hackathon.chatty_potato.rag.repository.DocumentRepository;
+import ia_x_ai_hackathon.chatty_potato.rag.service.AdmissionController;
 import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
-import ia_x_ai_hackathon.chatty_potato.rag.service.VectorStoreService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagMetrics;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagTracing;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SemanticAnswerCache;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy;
 import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 🔗 전체 RAG 파이프라인 오케스트레이터
@@ -36,12 +46,17 @@ import java.util.concurrent.ExecutionException;
 public class RagPipelineService {
 
 	private final RewriteChainService rewriteService;      // 사용자 질의 재작성
-	private final RetrieverChainService retrieverService;        // ES 기반 문서 검색
-	private final AugmentedChainService augmentedService;   // context 조립
+	private final PromptBuildStage promptBuildStage;        // 검색 → context 조립 → 프롬프트 (비동기)
 	private final GeneratorChainService generatorService;        // LLM 호출
 	private final InMemoryStore inMemoryStore;
-	private final VectorStoreService vectorStoreService;
-	private final EmbeddingService embeddingService;
+	private final SemanticAnswerCache semanticAnswerCache;   // 유사 질의 답변 재사용
+	private final AdmissionController admissionController;   // 단계/사용자별 in-flight 제한 (429)
+	private final RagMetrics ragMetrics;                     // 단계별 지연 지표
+	private final RagTracing ragTracing;                     // rewrite ↔ route trace 연결
+	private final TokenAllocationStrategy tokenAllocationStrategy; // 요청별 토큰 예산
+	private final EmbeddingService embeddingService;         // 재작성 질의 임베딩 (캐시 조회 ↔ 검색 공유)
+	@Qualifier("generationExecutor")
+	private final Executor generationExecutor;
 
 	/**
 	 * 단일 쿼리에 대한 RAG 전체 실행
@@ -97,131 +112,300 @@ public class RagPipelineService {
 //			return RagResultDto.failed(sessionId, originalQuery, e.getMessage());
 //		}
 //	}
+	/**
+	 * 질의 재작성 (승인 제어 적용)
+	 */
 	public RewriteResDto rewriteQuery(String userId, String originalQuery) {
+		return rewriteQuery(userId, originalQuery, null);
+	}
+
+	/**
+	 * @param isLow 라우트 힌트 (null 이면 기본 프로파일) — context 예산 산정에 사용
+	 */
+	public RewriteResDto rewriteQuery(String userId, String originalQuery, Boolean isLow) {
+		try (var permit = admissionController.admit(AdmissionController.Stage.REWRITE, userId)) {
+			return doRewriteQuery(userId, originalQuery, isLow);
+		}
+	}
+
+	private RewriteResDto doRewriteQuery(String userId, String originalQuery, Boolean isLow) {
 		String taskId = UUID.randomUUID().toString();
 
-		RewriteResultDto rewriteResult = rewriteService.rewrite(originalQuery);
-		String rewritten = rewriteResult.rewrittenQuery();
-		log.debug("✏️ Rewritten query: {}", rewriteResult.rewrittenQuery());
+		// 0️⃣ rewrite(LLM 왕복) 동안 원 질의로 검색을 미리 시작 → max(rewrite, retrieve)
+		CompletableFuture<PromptBuildStage.Speculation> speculation = promptBuildStage.startSpeculation(originalQuery);
+		boolean handedOff = false;
+		try {
+			RewriteResultDto rewriteResult = ragMetrics.time("rewrite", () -> rewriteService.rewrite(originalQuery));
+			String rewritten = rewriteResult.rewrittenQuery();
+			log.debug("✏️ Rewritten query: {}", rewriteResult.rewrittenQuery());
 
-		inMemoryStore.init(userId, taskId, originalQuery, rewritten);
-		asyncBuildPrompt(userId, taskId, originalQuery, rewritten);
+			// 실제 질의 토큰 수와 대상 모델 한도로 context 예산 산정 (남는 예산은 context로, 초과 시 QueryTooLongException)
+			var profile = tokenAllocationStrategy.profile(isLow);
+			TokenAllocationStrategy.TokenAllocation allocation = tokenAllocationStrategy.allocate(
+					rewriteResult.originalTokens(), rewriteResult.rewrittenTokens(), profile);
 
-		return new RewriteResDto(taskId, rewritten);
-	}
+			// 시맨틱 캐시 히트 → 검색/요약/생성 전체 생략
+			// 로우 라우트는 클라이언트가 프롬프트로 직접 생성하므로 캐시를 쓰지 않음 (항상 prompt 반환)
+			EmbeddingResultDto rewrittenEmbedding = null;
+			if (!profile.isLow()) {
+				rewrittenEmbedding = ragMetrics.time("embed", () -> embeddingService.embed(rewritten));
+				EmbeddingResultDto lookupEmbedding = rewrittenEmbedding;
+				var hit = ragMetrics.time("cache-lookup", () -> semanticAnswerCache.lookup(userId, rewritten, lookupEmbedding));
+				if (hit.isPresent()) {
+					var cached = hit.get();
+					var slot = inMemoryStore.initCached(userId, taskId, originalQuery, rewritten, cached.answer(),
+							new AugmentedContextDto("", cached.citations()));
+					slot.setTraceId(ragTracing.currentTraceId());
+					slot.setTokenProfile(profile.name());
+					return new RewriteResDto(taskId, rewritten);
+				}
+			}
 
-	@Async("ragExecutor")
-	protected void asyncBuildPrompt(String userId, String taskId, String original, String rewritten) {
-		if (!inMemoryStore.markBuildStarted(userId, taskId)) {
-			log.debug("⏭️ prompt build already started (userId={}, taskId={})", userId, taskId);
-			return;
+			// 프롬프트 빌드는 별도 단계에 넘기고 rewrite 결과는 바로 반환
+			var slot = inMemoryStore.init(userId, taskId, originalQuery, rewritten);
+			slot.setTraceId(ragTracing.currentTraceId());
+			slot.setTokenProfile(profile.name());
+			slot.setTokenAllocation(allocation);
+			slot.setQueryEmbedding(rewrittenEmbedding);
+			try {
+				// 캐시 조회에 쓴 임베딩은 검색에서 재사용 (null 이면 빌드 단계에서 임베딩)
+				promptBuildStage.submit(userId, taskId, originalQuery, rewritten, speculation, allocation, rewrittenEmbedding);
+				handedOff = true;
+			} catch (PipelineOverloadedException e) {
+				inMemoryStore.release(userId, taskId);
+				throw e;
+			}
+
+			return new RewriteResDto(taskId, rewritten);
+		} finally {
+			// 빌드 단계로 넘기지 못한 추측 검색(rewrite 실패/예산 초과/캐시 히트/빌드 거절)은 취소 → kNN 생략
+			if (!handedOff) promptBuildStage.cancelSpeculation(speculation);
 		}
+	}
 
+	/**
+	 * 프롬프트 준비 → (하이 라우트) 생성을 CompletableFuture 단계로 연결한다.
+	 * 요청 스레드는 즉시 반환되고, 생성 LLM 호출은 generationExecutor에서 수행된다.
+	 */
+	public CompletableFuture<RagResultDto> produceAsync(String userId, String taskId, boolean isLow, long waitMillis) {
+		// 승인 허가는 future 완료(성공/실패) 시 반환
+		var permit = admissionController.admit(AdmissionController.Stage.ROUTE, userId);
 		try {
-			List<RetrievedDocumentDto> retrievedDocs = retrieverService.retrieve(rewritten);
-			log.debug("📚 Retrieved {} documents", retrievedDocs.size());
-
-			// 3️⃣ Augmentation
-			AugmentedContextDto augmented = augmentedService.assemble(retrievedDocs);
-			log.debug("🧩 Context assembled ({} chars)", augmented.contextText().length());
-
-			// 4️⃣ Prompt assembly + Generation
-			PromptAssemblyDto prompt = generatorService.generatePrompt(
-					original, rewritten, augmented
-			);
-
-			inMemoryStore.completePrompt(userId, taskId, prompt, augmented);
-			log.info("✅ prompt READY (userId={}, taskId={})", userId, taskId);
-		} catch (Exception e) {
-			log.error("❌ prompt build failed (userId={}, taskId={}): {}", userId, taskId, e.getMessage(), e);
-			inMemoryStore.failPrompt(userId, taskId, e.getMessage());
+			return doProduceAsync(userId, taskId, isLow, waitMillis)
+					.whenComplete((result, ex) -> permit.close());
+		} catch (RuntimeException e) {
+			permit.close();
+			throw e;
 		}
 	}
 
-	public PromptAssemblyDto awaitPrompt(String userId, String taskId, long waitMillis, long stepMillis) {
+	private CompletableFuture<RagResultDto> doProduceAsync(String userId, String taskId, boolean isLow, long waitMillis) {
 		var slot = inMemoryStore.get(userId, taskId)
 				.orElseThrow(() -> new TaskNotFoundException(userId, taskId));
+		ragTracing.tagCurrent(RagTracing.TASK_TRACE_ID, slot.getTraceId());
 
 		if (slot.getStatus() == InMemoryStore.Status.ERROR) {
 			throw new PromptBuildFailedException(userId, taskId, slot.getError());
 		}
-
-		try {
-			Object prompt = FuturePoller.awaitWithDeadline(
-					slot.getPromptFuture(),
-					waitMillis,
-					stepMillis,
-					() -> slot.getStatus() == InMemoryStore.Status.ERROR
-			);
-
-			if (prompt == null) {
-				throw new PromptBuildFailedException(userId, taskId, "Prompt resolved to null");
-			}
-			return (PromptAssemblyDto) prompt;
-
-		} catch (TimeoutException te) {
+		if (waitMillis <= 0) {
 			throw new PromptTimeoutException(userId, taskId, waitMillis);
+		}
+
+		checkRouteFits(slot, isLow);
+		if (slot.getCachedAnswer() != null) {
+			// 해제 시 슬롯 context가 비워지므로 인용을 먼저 확보
+			var citations = citationsOf(slot);
+			inMemoryStore.release(userId, taskId);
+			return CompletableFuture.completedFuture(toResult(slot, null, slot.getCachedAnswer(), citations));
+		}
 
-		} catch (ExecutionException ee) {
-			throw new PromptBuildFailedException(
-					userId,
-					taskId,
-					ee.getCause() != null ? ee.getCause().getMessage() : ee.getMessage()
-			);
+		return awaitPromptAsync(slot, waitMillis)
+				.thenCompose(prompt -> {
+					// 생성 도중 슬롯이 만료/제거돼도 결과·캐시 저장에 쓸 인용은 프롬프트 준비 시점에 확보
+					var citations = citationsOf(slot);
+					return isLow
+							? CompletableFuture.completedFuture(toResult(slot, prompt, null, citations))
+							: CompletableFuture.supplyAsync(() -> generate(slot, prompt, citations), generationExecutor);
+				})
+				.whenComplete((result, ex) -> {
+					// 소비 완료/실패 → 슬롯 해제 (프롬프트 대기 타임아웃만 재시도를 위해 유지, 스트림 경로와 동일)
+					Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+					if (!(cause instanceof PromptTimeoutException)) {
+						inMemoryStore.release(userId, taskId);
+					}
+				});
+	}
 
-		} catch (InterruptedException ie) {
-			Thread.currentThread().interrupt();
-			throw new PromptBuildFailedException(userId, taskId, "Interrupted while waiting for prompt");
+	/**
+	 * rewrite 시 힌트로 잡은 context 예산이 실제 라우트 모델 한도에 맞는지 확인
+	 * (예: high 예산으로 만든 프롬프트를 4096 window 의 low 모델로 보내는 경우 거절, 슬롯은 유지)
+	 */
+	private void checkRouteFits(InMemoryStore.Slot slot, boolean isLow) {
+		var target = tokenAllocationStrategy.profile(isLow);
+		// 캐시 답변 슬롯(하이 힌트로만 생김)은 프롬프트가 없어 로우 라우트로 줄 수 없음
+		if (slot.getCachedAnswer() != null && target.isLow()) {
+			throw new RouteMismatchException(slot.getUserId(), slot.getTaskId(), slot.getTokenProfile(), target.name());
 		}
+		var allocation = slot.getTokenAllocation();
+		if (allocation == null) return;
+		if (!tokenAllocationStrategy.fits(allocation, target)) {
+			throw new RouteMismatchException(slot.getUserId(), slot.getTaskId(), slot.getTokenProfile(), target.name());
+		}
+	}
+
+	/**
+	 * 슬롯의 promptFuture 완료를 비동기로 기다린다.
+	 * 공유 future에 타임아웃을 걸지 않도록 copy()에 데드라인을 건다.
+	 */
+	private CompletableFuture<PromptAssemblyDto> awaitPromptAsync(InMemoryStore.Slot slot, long waitMillis) {
+		String userId = slot.getUserId();
+		String taskId = slot.getTaskId();
+		long waitStart = System.nanoTime();
+
+		return slot.getPromptFuture().copy()
+				.orTimeout(waitMillis, TimeUnit.MILLISECONDS)
+				.handle((prompt, ex) -> {
+					ragMetrics.record("prompt-wait", System.nanoTime() - waitStart);
+					if (ex == null) {
+						if (prompt == null) {
+							throw new PromptBuildFailedException(userId, taskId, "Prompt resolved to null");
+						}
+						return (PromptAssemblyDto) prompt;
+					}
+
+					Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+					if (cause instanceof java.util.concurrent.TimeoutException) {
+						throw new PromptTimeoutException(userId, taskId, waitMillis);
+					}
+					throw new PromptBuildFailedException(userId, taskId, cause.getMessage());
+				});
 	}
 
-	public RagResultDto produce(String userId, String taskId, boolean isLow, long waitMillis, long stepMillis) {
-		// 1) 데드라인-폴링으로 프롬프트 확보
-		PromptAssemblyDto prompt = awaitPrompt(userId, taskId, waitMillis, stepMillis);
+	/**
+	 * 하이 라우트 스트리밍: citations 이벤트 → 답변 delta 이벤트들 → done 이벤트
+	 * 스트림이 정상 완료되면 완성된 답변을 시맨틱 캐시에 저장한다 (실패 시 error 이벤트, 저장 안 함).
+	 * 슬롯은 완료/오류/취소 시 해제 (프롬프트 대기 타임아웃만 재시도를 위해 유지).
+	 */
+	public Flux<ServerSentEvent<Object>> produceStream(String userId, String taskId, long waitMillis) {
+		// 승인 허가는 스트림 종료(완료/오류/취소) 시 반환
+		var permit = admissionController.admit(AdmissionController.Stage.ROUTE, userId);
+		try {
+			return doProduceStream(userId, taskId, waitMillis)
+					.doFinally(signal -> permit.close());
+		} catch (RuntimeException e) {
+			permit.close();
+			throw e;
+		}
+	}
 
-		// 2) (옵션) 원문/리라이트는 슬롯에서 회수
+	private Flux<ServerSentEvent<Object>> doProduceStream(String userId, String taskId, long waitMillis) {
 		var slot = inMemoryStore.get(userId, taskId)
 				.orElseThrow(() -> new TaskNotFoundException(userId, taskId));
+		ragTracing.tagCurrent(RagTracing.TASK_TRACE_ID, slot.getTraceId());
 
+		if (slot.getStatus() == InMemoryStore.Status.ERROR) {
+			throw new PromptBuildFailedException(userId, taskId, slot.getError());
+		}
+		if (waitMillis <= 0) {
+			throw new PromptTimeoutException(userId, taskId, waitMillis);
+		}
 
-
-		if (isLow) {
-			return new RagResultDto(
-					taskId,                // sessionId로 taskId 사용
-					slot.getOriginal(),    // originalQuery
-					slot.getRewritten(),   // rewrittenQuery
-					null,                // answer
-					prompt,                // prompt dto
-					slot.getAugmentedContext().citations(),    // citations
-					Instant.now()
-			);
+		if (slot.getCachedAnswer() != null) {
+			var citations = citationsOf(slot);
+			inMemoryStore.release(userId, taskId);
+			return Flux.just(
+					sse("citations", citations),
+					sse("delta", slot.getCachedAnswer()),
+					sse("done", Map.of("taskId", taskId, "chars", slot.getCachedAnswer().length(), "cached", true)));
 		}
 
-			// 3) 하이 LLM 동기 호출
-			String answer = generatorService.generateAnswer(prompt);
+		checkRouteFits(slot, false); // 스트리밍은 하이 라우트
+
+		AtomicBoolean keepSlot = new AtomicBoolean(false);
+		return Mono.fromFuture(awaitPromptAsync(slot, waitMillis))
+				.flatMapMany(prompt -> {
+					StringBuilder answer = new StringBuilder();
+					long streamStart = System.nanoTime();
+					var citationList = citationsOf(slot);
+
+					Flux<ServerSentEvent<Object>> citations = Flux.just(sse("citations", citationList));
 
-		vectorStoreService.save(
+					Flux<ServerSentEvent<Object>> deltas = generatorService.streamAnswer(prompt)
+							.doOnNext(answer::append)
+							.map(delta -> sse("delta", delta));
+
+					// 완료 후 write-back (블로킹 I/O → boundedElastic)
+					Mono<ServerSentEvent<Object>> done = Mono.fromCallable(() -> {
+								ragMetrics.record("stream", System.nanoTime() - streamStart);
+								saveAnswer(slot, answer.toString(), citationList);
+								return sse("done", Map.of("taskId", taskId, "chars", answer.length()));
+							})
+							.subscribeOn(Schedulers.boundedElastic());
+
+					return citations.concatWith(deltas).concatWith(done);
+				})
+				.onErrorResume(e -> {
+					log.error("❌ streaming failed (userId={}, taskId={}): {}", userId, taskId, e.getMessage());
+					keepSlot.set(e instanceof PromptTimeoutException);
+					return Flux.just(sse("error", Map.of(
+							"taskId", taskId,
+							"type", e.getClass().getSimpleName(),
+							"detail", String.valueOf(e.getMessage()))));
+				})
+				.doFinally(signal -> {
+					if (!keepSlot.get()) inMemoryStore.release(userId, taskId);
+				});
+	}
+
+	/** 하이 LLM 호출 + 답변 벡터스토어 저장 */
+	private RagResultDto generate(InMemoryStore.Slot slot, PromptAssemblyDto prompt,
+								 List<AugmentedContextDto.Citation> citations) {
+		String answer = ragMetrics.time("generate", () -> generatorService.generateAnswer(prompt));
+		saveAnswer(slot, answer, citations);
+		return toResult(slot, prompt, answer, citations);
+	}
+
+	/**
+	 * 생성된 답변을 재작성 질의 기준으로 시맨틱 캐시에 저장
+	 * 생성 실패는 예외로 올라오므로 여기에는 실제 답변만 들어온다 (빈 답변은 저장하지 않음)
+	 * 색인은 캐시 조회 때 계산한 임베딩을 그대로 사용 (캐시를 조회하지 않은 로우 힌트 슬롯은 저장 생략)
+	 */
+	private void saveAnswer(InMemoryStore.Slot slot, String answer, List<AugmentedContextDto.Citation> citations) {
+		if (answer == null || answer.isBlank()) {
+			log.warn("⚠️ empty answer not cached (taskId={})", slot.getTaskId());
+			return;
+		}
+		semanticAnswerCache.put(
+				slot.getUserId(),
+				slot.getRewritten(),
+				slot.getOriginal(),
+				slot.getQueryEmbedding(),
 				answer,
-				Map.of(
-						"originalQuery", slot.getOriginal(),
-						"rewrittenQuery", slot.getRewritten(),
-						"taskId", taskId,
-						"userId", userId,
-						"createdAt", Instant.now().toString()
-				)
+				citations
 		);
+	}
+
+	private static ServerSentEvent<Object> sse(String event, Object data) {
+		return ServerSentEvent.builder(data).event(event).build();
+	}
+
+	/** 슬롯 해제(onRemoval) 후에는 context가 null 이므로 빈 목록 */
+	private static List<AugmentedContextDto.Citation> citationsOf(InMemoryStore.Slot slot) {
+		AugmentedContextDto context = slot.getAugmentedContext();
+		return context == null ? List.of() : context.citations();
+	}
 
-		// 4) DTO 조립
+	private RagResultDto toResult(InMemoryStore.Slot slot, PromptAssemblyDto prompt, String answer,
+								  List<AugmentedContextDto.Citation> citations) {
 		return new RagResultDto(
-				taskId,                // sessionId로 taskId 사용
+				slot.getTaskId(),      // sessionId로 taskId 사용
 				slot.getOriginal(),    // originalQuery
 				slot.getRewritten(),   // rewrittenQuery
-				answer,                // answer
+				answer,                // answer (로우 라우트는 null)
 				prompt,                // prompt dto
-				slot.getAugmentedContext().citations(),    // citations
+				citations,             // citations (생성 전에 확보한 값)
 				Instant.now()
 		);
 	}
 
 }
-
@@ -3,9 +3,10 @@ package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto.Citation;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import ia_x_ai_hackathon.chatty_potato.rag.service.ContextPacker;
 import ia_x_ai_hackathon.chatty_potato.rag.service.SummarizationService;
 import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy;
-import ia_x_ai_hackathon.chatty_potato.rag.service.TokenCounter;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy.TokenAllocation;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,7 +19,7 @@ import org.springframework.stereotype.Service;
  *
  * <p>최적화 전략:
  * <ol>
- *   <li>토큰 제한 내 문서 선택 (탐욕 알고리즘)</li>
+ *   <li>토큰 제한 내 문서 선택 ({@link ContextPacker}: 관련도 합 최대화)</li>
  *   <li>선택된 문서만 요약 (비용 절감)</li>
  *   <li>Context Text 조립</li>
  * </ol>
@@ -30,6 +31,10 @@ public class AugmentedChainService {
 
     private final SummarizationService summarizationService;
     private final TokenAllocationStrategy tokenAllocationStrategy;
+    private final ContextPacker contextPacker;
+
+    // "Source[id]: " 헤더 + 문서 사이 줄바꿈 추정치 (선택/하드컷 예산에 문서마다 포함)
+    static final int SOURCE_HEADER_TOKENS = 8;
 
     /**
      * 검색된 문서들을 조립해 AugmentedContext 생성
@@ -38,19 +43,29 @@ public class AugmentedChainService {
      * @return AugmentedContextDto
      */
     public AugmentedContextDto assemble(List<RetrievedDocumentDto> retrievedDocs) {
+        return assemble(retrievedDocs, tokenAllocationStrategy.allocate());
+    }
+
+    /**
+     * 요청별 할당(allocation.context())을 context 예산으로 사용해 조립
+     */
+    public AugmentedContextDto assemble(List<RetrievedDocumentDto> retrievedDocs, TokenAllocation allocation) {
         if (retrievedDocs == null || retrievedDocs.isEmpty()) return AugmentedContextDto.empty();
 
-        var allocation = tokenAllocationStrategy.allocate();
         int maxContextTokens = allocation.context();
 
-        var selected   = selectDocsGreedy(retrievedDocs, maxContextTokens);
+        var selected   = contextPacker.pack(retrievedDocs, maxContextTokens, this::estimatedTokens);
         var summarized = summarizationService.summarizeBatch(selected);
         var trimmed    = hardCapByTokens(summarized, maxContextTokens);
 
         String contextText = buildContextText(trimmed);
         var citations = buildCitations(trimmed);
 
-        int tokens = TokenCounter.count(contextText);
+        // 문서별 토큰 수 합 (+ "Source[id]: " 헤더분) — 조립된 문자열을 다시 세지 않음
+        int tokens = 0;
+        for (RetrievedDocumentDto doc : trimmed) {
+            tokens += packedTokens(doc);
+        }
         log.info("Assembled context: {} docs, tokens={} (limit={})",
                 trimmed.size(), tokens, maxContextTokens);
 
@@ -72,13 +87,13 @@ public class AugmentedChainService {
         int totalTokens = 0;
 
         for (RetrievedDocumentDto doc : docs) {
-            // snippet이 null일 수 있으니 방어
-            String snippet = doc.snippet() == null ? "" : doc.snippet();
-            int tokens = TokenCounter.count(snippet);
+            // 요약으로 snippet이 바뀐 문서는 withSnippet에서 이미 재계산됨 (+ 헤더분)
+            int tokens = packedTokens(doc);
 
             if (totalTokens + tokens > maxTokens) {
-                log.debug("hardCap stop: {} + {} > {}", totalTokens, tokens, maxTokens);
-                break;
+                // 넘치는 문서만 건너뛰고 뒤쪽의 더 작은 문서는 계속 시도
+                log.debug("hardCap skip doc[{}]: {} + {} > {}", doc.id(), totalTokens, tokens, maxTokens);
+                continue;
             }
 
             result.add(doc);
@@ -90,48 +105,16 @@ public class AugmentedChainService {
     }
 
     /**
-     * 탐욕 알고리즘으로 토큰 제한 내 최대한 많은 문서 선택
-     *
-     * <p>전략:
-     * - 점수 순으로 정렬된 문서를 순회
-     * - 긴 문서는 요약 시 절반으로 줄어든다고 가정
-     * - 추정 토큰이 제한 내면 선택
-     *
-     * @param docs 검색된 문서 리스트
-     * @param maxTokens 최대 토큰 수
-     * @return 선택된 문서 리스트
+     * 요약 이후 예상 토큰 수: 긴 문서(2000자 이상)는 요약 시 절반으로 줄어든다고 가정 (+ 헤더분)
      */
-    private List<RetrievedDocumentDto> selectDocsGreedy(
-            List<RetrievedDocumentDto> docs,
-            int maxTokens
-    ) {
-        List<RetrievedDocumentDto> result = new ArrayList<>();
-        int totalEstimatedTokens = 0;
-
-        for (RetrievedDocumentDto doc : docs) {
-            int docTokens = TokenCounter.count(doc.snippet());
-
-            // 추정: 긴 문서(2000자 이상)는 요약 시 절반으로 줄어듦
-            int estimatedTokens = docTokens > 1000 ? docTokens / 2 : docTokens;
-
-            if (totalEstimatedTokens + estimatedTokens <= maxTokens) {
-                result.add(doc);
-                totalEstimatedTokens += estimatedTokens;
-
-                log.debug("Selected doc[{}]: {} tokens (estimated: {})",
-                        doc.id(), docTokens, estimatedTokens);
-            } else {
-                log.debug("Skipped doc[{}]: would exceed limit ({} + {} > {})",
-                        doc.id(), totalEstimatedTokens, estimatedTokens, maxTokens);
-                // 제한 초과 시 중단 (탐욕 알고리즘)
-                break;
-            }
-        }
-
-        log.info("Greedy selection: {} docs, estimated {} tokens (limit: {})",
-                result.size(), totalEstimatedTokens, maxTokens);
+    private int estimatedTokens(RetrievedDocumentDto doc) {
+        int docTokens = doc.tokenCount();
+        return (docTokens > 1000 ? docTokens / 2 : docTokens) + SOURCE_HEADER_TOKENS;
+    }
 
-        return result;
+    /** context 에 실제로 들어가는 토큰 수 (본문 + "Source[id]: " 헤더) */
+    private static int packedTokens(RetrievedDocumentDto doc) {
+        return doc.tokenCount() + SOURCE_HEADER_TOKENS;
     }
 
     /**
@@ -2,10 +2,15 @@ package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 
 import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.PromptAssemblyDto;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.GenerationFailedException;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter.Downstream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Service
@@ -13,6 +18,7 @@ import org.springframework.stereotype.Service;
 public class GeneratorChainService {
 
     private final ChatClient chatClient;
+    private final DownstreamLimiter downstreamLimiter;
 
     /**
      * 조립된 context와 사용자 질의를 기반으로 답변 생성
@@ -60,16 +66,36 @@ public class GeneratorChainService {
 
     /**
      * 실제 LLM 호출 수행
+     *
+     * @throws GenerationFailedException LLM 호출 실패 (안내 문구를 답변처럼 반환하지 않음 → 캐시 오염 방지)
      */
     public String generateAnswer(PromptAssemblyDto prompt) {
         try {
-            var response = chatClient.prompt(prompt.finalPrompt()).call();
-            String content = response.content();
+            String content = downstreamLimiter.call(Downstream.LLM, "generate",
+                    () -> chatClient.prompt(prompt.finalPrompt()).call().content());
             log.info("✅ Generation complete ({} chars)", content.length());
             return content;
         } catch (Exception e) {
             log.error("❌ LLM generation failed: {}", e.getMessage(), e);
-            return "⚠️ Sorry, an internal generation error occurred.";
+            throw new GenerationFailedException("LLM generation failed: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 스트리밍 LLM 호출: 토큰(델타) 단위로 방출
+     * 실패는 GenerationFailedException 에러 신호로 전달 (안내 문구를 델타로 섞지 않음)
+     */
+    public Flux<String> streamAnswer(PromptAssemblyDto prompt) {
+        // 스트림이 끝날 때까지 LLM 허가를 유지 (boundedElastic에서 대기)
+        return Flux.using(
+                        () -> downstreamLimiter.acquire(Downstream.LLM, "generate-stream"),
+                        permit -> chatClient.prompt(prompt.finalPrompt()).stream().content(),
+                        DownstreamLimiter.Permit::close)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnComplete(() -> log.info("✅ Streaming generation complete"))
+                .onErrorMap(e -> {
+                    log.error("❌ LLM streaming failed: {}", e.getMessage(), e);
+                    return new GenerationFailedException("LLM streaming failed: " + e.getMessage(), e);
+                });
+    }
 }
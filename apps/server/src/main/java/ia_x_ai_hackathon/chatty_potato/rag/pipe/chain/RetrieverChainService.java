@@ -3,21 +3,42 @@ package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
 import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
 import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.store.CompactVector;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.HighlightQuery;
 import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.highlight.Highlight;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightField;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightParameters;
 import org.springframework.stereotype.Service;
 
 /**
  * RAG 파이프라인의 Retrieval 단계를 담당하는 서비스 (Elasticsearch 기반)
+ *
+ * <p>rag.retrieval.mode
+ * - knn (기본): 임베딩 kNN만 사용
+ * - hybrid: kNN + BM25(multi_match title^2, content)를 _msearch 한 번으로 보내고 RRF로 융합
+ * <p>rag.retrieval.projection
+ * - full (기본): content 전체를 snippet으로 사용
+ * - passages: content 대신 highlight 조각(매칭 없으면 앞부분 no_match_size)만 받아 snippet으로 사용
+ * 어느 모드든 _source에서 embedding 벡터는 제외한다.
  */
 @Slf4j
 @Service
@@ -26,9 +47,26 @@ public class RetrieverChainService {
 
     private final EmbeddingService embeddingService;
     private final ElasticsearchOperations elasticsearchOperations;
+    private final DownstreamLimiter downstreamLimiter;
+
+    @Value("${rag.retrieval.mode:knn}")
+    private final String mode;
+    // RRF 상수 k: score = Σ 1 / (k + rank)
+    @Value("${rag.retrieval.rrf-k:60}")
+    private final int rrfK;
+
+    @Value("${rag.retrieval.projection:full}")
+    private final String projection;
+    // passages 모드: 조각 길이(문자) / 문서당 조각 수
+    @Value("${rag.retrieval.passage-chars:400}")
+    private final int passageChars;
+    @Value("${rag.retrieval.passages:3}")
+    private final int passages;
 
     private static final String INDEX_NAME = "documents";
-    private static final int DEFAULT_TOP_K = 5;
+    private static final String VECTOR_FIELD = "embedding";
+    private static final String CONTENT_FIELD = "content";
+    public static final int DEFAULT_TOP_K = 5;
     private static final double MIN_RELEVANCE_SCORE = 0.5;
 
     public List<RetrievedDocumentDto> retrieve(String query) {
@@ -46,13 +84,35 @@ public class RetrieverChainService {
             topK = DEFAULT_TOP_K;
         }
 
-        try {
-            log.debug("Retrieving documents for query: '{}', topK: {}", query, topK);
+        log.debug("Retrieving documents for query: '{}', topK: {}", query, topK);
+
+        EmbeddingResultDto queryEmbedding = embeddingService.embed(query);
+        log.debug("Query embedded: {} dimensions", queryEmbedding.dims());
+
+        return retrieve(query, queryEmbedding, topK);
+    }
 
-            EmbeddingResultDto queryEmbedding = embeddingService.embed(query);
-            log.debug("Query embedded: {} dimensions", queryEmbedding.dims());
+    /**
+     * 질의 텍스트 + 계산된 임베딩으로 검색 (hybrid 모드면 BM25 병행, 아니면 kNN)
+     */
+    public List<RetrievedDocumentDto> retrieve(String query, EmbeddingResultDto queryEmbedding, int topK) {
+        if (isHybrid() && query != null && !query.isBlank()) {
+            return hybrid(query, queryEmbedding, topK);
+        }
+        return retrieve(queryEmbedding, topK);
+    }
 
-            List<RetrievedDocumentDto> results = searchWithKnn(queryEmbedding.vector(), topK);
+    /**
+     * 이미 계산된 질의 임베딩으로 검색 (임베딩 재호출 없음)
+     * - 추측 검색(speculative retrieval)에서 원 질의 임베딩을 재사용할 때 사용
+     */
+    public List<RetrievedDocumentDto> retrieve(EmbeddingResultDto queryEmbedding, int topK) {
+        if (topK <= 0) {
+            topK = DEFAULT_TOP_K;
+        }
+
+        try {
+            List<RetrievedDocumentDto> results = searchWithKnn(queryEmbedding.values(), topK);
 
             List<RetrievedDocumentDto> filteredResults = results.stream()
                     .filter(doc -> doc.score() >= MIN_RELEVANCE_SCORE)
@@ -73,40 +133,85 @@ public class RetrieverChainService {
         }
     }
 
-    private List<RetrievedDocumentDto> searchWithKnn(float[] queryVector, int topK) {
-        Query query = NativeQuery.builder()
+    private List<RetrievedDocumentDto> searchWithKnn(CompactVector queryVector, int topK) {
+        Query query = knnQuery(queryVector, topK);
+
+        // ✅ IndexCoordinates 대신 간단하게 처리
+        SearchHits<DocumentEntity> searchHits = downstreamLimiter.call(DownstreamLimiter.Downstream.ES, "knn",
+                () -> elasticsearchOperations.search(query, DocumentEntity.class));
+
+        return searchHits.stream()
+                .map(this::toRetrievedDocument)
+                .collect(Collectors.toList());
+    }
+
+    private Query knnQuery(CompactVector queryVector, int topK) {
+        return projected(NativeQuery.builder())
                 .withQuery(q -> q
                         .knn(knn -> knn
-                                .field("embedding")
-                                .queryVector(toFloatList(queryVector))
+                                .field(VECTOR_FIELD)
+                                .queryVector(queryVector.asList()) // 읽기 전용 뷰: 박싱된 리스트 재생성 없음
                                 .k(topK)
                                 .numCandidates(topK * 10)
                         )
                 )
                 .withMaxResults(topK)
                 .build();
+    }
 
-        // ✅ IndexCoordinates 대신 간단하게 처리
-        SearchHits<DocumentEntity> searchHits = elasticsearchOperations.search(
-                query,
-                DocumentEntity.class
-        );
+    private Query bm25Query(String queryText, int topK) {
+        return projected(NativeQuery.builder())
+                .withQuery(q -> q
+                        .multiMatch(mm -> mm
+                                .query(queryText)
+                                .fields("title^2", "content")
+                        )
+                )
+                .withMaxResults(topK)
+                .build();
+    }
 
-        return searchHits.stream()
-                .map(this::toRetrievedDocument)
-                .collect(Collectors.toList());
+    /**
+     * 응답 projection: 벡터 필드는 항상 제외, passages 모드면 content 대신 highlight 조각 요청
+     */
+    private NativeQueryBuilder projected(NativeQueryBuilder builder) {
+        if (!isPassages()) {
+            return builder.withSourceFilter(new FetchSourceFilterBuilder().withExcludes(VECTOR_FIELD).build());
+        }
+
+        HighlightParameters params = HighlightParameters.builder()
+                .withPreTags("")
+                .withPostTags("")
+                .withFragmentSize(passageChars)
+                .withNumberOfFragments(passages)
+                .withNoMatchSize(passageChars)     // 매칭 없는 kNN 히트는 앞부분 조각
+                .build();
+        return builder
+                .withSourceFilter(new FetchSourceFilterBuilder().withExcludes(VECTOR_FIELD, CONTENT_FIELD).build())
+                .withHighlightQuery(new HighlightQuery(
+                        new Highlight(params, List.of(new HighlightField(CONTENT_FIELD))), DocumentEntity.class));
     }
 
     private RetrievedDocumentDto toRetrievedDocument(SearchHit<DocumentEntity> hit) {
-        DocumentEntity doc = hit.getContent();
-        double score = hit.getScore();
+        return toRetrievedDocument(hit, hit.getScore());
+    }
 
-        return RetrievedDocumentDto.builder()
+    private RetrievedDocumentDto toRetrievedDocument(SearchHit<DocumentEntity> hit, double score) {
+        DocumentEntity doc = hit.getContent();
+        var builder = RetrievedDocumentDto.builder()
                 .id(doc.getId())
                 .title(doc.getTitle())
-                .snippet(doc.getContent())
                 .url(doc.getUrl())
-                .score(normalizeScore(score))
+                .score(normalizeScore(score));
+
+        if (isPassages()) {
+            // 조각 기준 snippet → 색인된 tokenCount(전체 content 기준)는 쓰지 않고 조각으로 계산
+            List<String> fragments = hit.getHighlightField(CONTENT_FIELD);
+            return builder.snippet(fragments.isEmpty() ? "" : String.join(" … ", fragments)).build();
+        }
+        return builder
+                .snippet(doc.getContent())
+                .tokenCount(doc.getTokenCount())
                 .build();
     }
 
@@ -114,27 +219,144 @@ public class RetrieverChainService {
         return Math.max(0.0, Math.min(1.0, rawScore));
     }
 
-    private List<Float> toFloatList(float[] floats) {
-        return IntStream.range(0, floats.length)
-                .mapToObj(i -> floats[i])
-                .collect(Collectors.toList());
-    }
-
+    /**
+     * 여러 질의 일괄 검색 (다중 질의 확장, 오프라인 평가용)
+     *
+     * <p>임베딩은 {@link EmbeddingService#embedBatch} 한 번, 검색은 _msearch 한 번
+     * (hybrid 모드면 질의마다 kNN + BM25 두 개씩). 결과는 입력 순서, 빈 질의는 빈 목록.
+     */
     public List<List<RetrievedDocumentDto>> retrieveBatch(List<String> queries, int topK) {
         if (queries == null || queries.isEmpty()) {
             log.warn("Empty queries received for batch retrieval");
             return List.of();
         }
+        int k = topK <= 0 ? DEFAULT_TOP_K : topK;
 
-        log.info("Batch retrieval: {} queries, topK: {}", queries.size(), topK);
+        log.info("Batch retrieval: {} queries, topK: {}", queries.size(), k);
 
-        return queries.stream()
-                .map(query -> retrieve(query, topK))
-                .collect(Collectors.toList());
+        List<Integer> positions = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            if (query != null && !query.isBlank()) {
+                positions.add(i);
+                texts.add(query);
+            }
+        }
+
+        List<List<RetrievedDocumentDto>> out = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            out.add(List.of());
+        }
+        if (texts.isEmpty()) {
+            return out;
+        }
+
+        boolean hybrid = isHybrid();
+        int perQuery = hybrid ? 2 : 1;
+        try {
+            List<EmbeddingResultDto> embeddings = embeddingService.embedBatch(texts);
+
+            List<Query> searches = new ArrayList<>(texts.size() * perQuery);
+            for (int j = 0; j < texts.size(); j++) {
+                searches.add(knnQuery(embeddings.get(j).values(), k));
+                if (hybrid) {
+                    searches.add(bm25Query(texts.get(j), k));
+                }
+            }
+
+            List<SearchHits<DocumentEntity>> results = downstreamLimiter.call(DownstreamLimiter.Downstream.ES,
+                    hybrid ? "hybrid-batch" : "knn-batch",
+                    () -> elasticsearchOperations.multiSearch(searches, DocumentEntity.class));
+
+            for (int j = 0; j < texts.size(); j++) {
+                List<SearchHit<DocumentEntity>> knnHits = relevantKnnHits(results.get(j * perQuery));
+                out.set(positions.get(j), hybrid
+                        ? fuseRrf(List.of(knnHits, results.get(j * perQuery + 1).stream().toList()), k)
+                        : knnHits.stream().map(this::toRetrievedDocument).collect(Collectors.toList()));
+            }
+            log.info("Batch retrieval completed: {} queries in one msearch ({} searches)",
+                    texts.size(), searches.size());
+
+        } catch (Exception e) {
+            log.error("Batch retrieval failed: {}", e.getMessage(), e);
+        }
+        return out;
     }
 
+    /**
+     * 하이브리드 검색 (rag.retrieval.mode 와 무관하게 항상 kNN + BM25)
+     */
     public List<RetrievedDocumentDto> retrieveHybrid(String query, int topK) {
-        log.debug("Hybrid retrieval (Vector only for now) for query: '{}'", query);
-        return retrieve(query, topK);
+        if (query == null || query.isBlank()) {
+            log.warn("Empty query received, returning empty results");
+            return List.of();
+        }
+        return hybrid(query, embeddingService.embed(query), topK);
+    }
+
+    private List<RetrievedDocumentDto> hybrid(String query, EmbeddingResultDto queryEmbedding, int topK) {
+        if (topK <= 0) {
+            topK = DEFAULT_TOP_K;
+        }
+
+        try {
+            List<Query> queries = List.of(knnQuery(queryEmbedding.values(), topK), bm25Query(query, topK));
+            List<SearchHits<DocumentEntity>> results = downstreamLimiter.call(DownstreamLimiter.Downstream.ES, "hybrid",
+                    () -> elasticsearchOperations.multiSearch(queries, DocumentEntity.class));
+
+            // kNN은 기존과 같은 최소 관련도 컷, BM25는 키워드 매칭 자체를 근거로 그대로 사용
+            List<SearchHit<DocumentEntity>> knnHits = relevantKnnHits(results.get(0));
+            List<SearchHit<DocumentEntity>> bm25Hits = results.get(1).stream().toList();
+
+            List<RetrievedDocumentDto> fused = fuseRrf(List.of(knnHits, bm25Hits), topK);
+            log.info("Hybrid retrieved {} documents (knn {}, bm25 {}, topK: {})",
+                    fused.size(), knnHits.size(), bm25Hits.size(), topK);
+            return fused;
+
+        } catch (Exception e) {
+            log.error("Hybrid retrieval failed: {}", e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    private List<SearchHit<DocumentEntity>> relevantKnnHits(SearchHits<DocumentEntity> hits) {
+        return hits.stream()
+                .filter(hit -> normalizeScore(hit.getScore()) >= MIN_RELEVANCE_SCORE)
+                .toList();
+    }
+
+    /**
+     * Reciprocal Rank Fusion: 문서 id 기준으로 각 순위 목록의 1/(k + rank) 합산
+     * - 점수는 모든 목록 1위일 때 1.0 이 되도록 정규화
+     */
+    private List<RetrievedDocumentDto> fuseRrf(List<List<SearchHit<DocumentEntity>>> rankings, int topK) {
+        // 같은 문서는 뒤쪽 목록(BM25)의 히트를 보관 → passages 모드에서 키워드 매칭 조각 사용
+        Map<String, SearchHit<DocumentEntity>> hits = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (List<SearchHit<DocumentEntity>> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                SearchHit<DocumentEntity> hit = ranking.get(rank);
+                String id = hit.getContent().getId();
+                hits.put(id, hit);
+                scores.merge(id, 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+
+        double maxScore = rankings.size() / (rrfK + 1.0);
+        return hits.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, SearchHit<DocumentEntity>> e) ->
+                        scores.get(e.getKey())).reversed())
+                .limit(topK)
+                .map(e -> toRetrievedDocument(e.getValue(), scores.get(e.getKey()) / maxScore))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isHybrid() {
+        return "hybrid".equalsIgnoreCase(mode);
+    }
+
+    private boolean isPassages() {
+        return "passages".equalsIgnoreCase(projection);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RewriteResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
 import ia_x_ai_hackathon.chatty_potato.rag.service.TokenCounter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +26,7 @@ import org.springframework.stereotype.Service;
 public class RewriteChainService {
 
     private final ChatClient chatClient;
+    private final DownstreamLimiter downstreamLimiter;
 
     // 🟦 Rewrite Query: ≤100 tokens (5%)
     private static final int MAX_REWRITE_TOKENS = 100;
@@ -92,10 +94,8 @@ public class RewriteChainService {
                 Rewritten query (max %d tokens):""".formatted(
                 MAX_REWRITE_TOKENS, userQuery, MAX_REWRITE_TOKENS);
 
-        String rewritten = chatClient.prompt(prompt)
-                .call()
-                .content()
-                .trim();
+        String rewritten = downstreamLimiter.call(DownstreamLimiter.Downstream.LLM, "rewrite",
+                () -> chatClient.prompt(prompt).call().content()).trim();
 
         // 빈 응답 방어
         if (rewritten.isBlank()) {
@@ -13,4 +13,7 @@ public interface DocumentRepository extends ElasticsearchRepository<DocumentEnti
 	// 커스텀 쿼리 메서드 추가 가능
 	List<DocumentEntity> findByTitle(String title);
 	List<DocumentEntity> findByContentContaining(String keyword);
+
+	// 재색인 후 청크 수가 줄었을 때 남은 이전 청크 정리
+	void deleteByParentIdAndChunkIndexGreaterThanEqual(String parentId, int chunkIndex);
 }
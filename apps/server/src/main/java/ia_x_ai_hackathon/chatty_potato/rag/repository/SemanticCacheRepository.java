@@ -0,0 +1,10 @@
+package ia_x_ai_hackathon.chatty_potato.rag.repository;
+
+import ia_x_ai_hackathon.chatty_potato.rag.entity.SemanticCacheEntity;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SemanticCacheRepository extends ElasticsearchRepository<SemanticCacheEntity, String> {
+	// 저장은 save, 조회(kNN)는 SemanticAnswerCache 에서 ElasticsearchOperations 로 직접 수행
+}
@@ -0,0 +1,173 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.exception.AdmissionRejectedException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 파이프라인 입구 승인 제어 (load shedding)
+ *
+ * <p>단계(rewrite / route)별 in-flight 상한과 사용자별 in-flight 상한을 함께 적용한다.
+ * - 단계 상한은 AIMD로 조정: 지연이 목표 이하이고 상한을 절반 이상 쓰는 중이면 +1,
+ *   목표 초과 시 × backoff (minLimit ~ maxLimit)
+ * - 거절 시 {@link AdmissionRejectedException} → 429 + Retry-After (평균 지연 기반)
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+	public enum Stage { REWRITE, ROUTE }
+
+	/** 승인 핸들: 작업 종료 시 반드시 close (중복 호출 무시) */
+	public interface Permit extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	/** 단계 상태 스냅샷 */
+	public record Snapshot(Stage stage, int limit, int inFlight, long avgLatencyMillis) {}
+
+	private static final Permit NOOP = () -> { };
+	private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+	private final boolean enabled;
+	private final int perUserMax;
+	private final Map<Stage, StageLimiter> limiters = new EnumMap<>(Stage.class);
+	// 사용자별 in-flight 수 (증감·상한 검사·0일 때 제거를 모두 compute 안에서 원자적으로)
+	private final ConcurrentHashMap<String, Integer> perUser = new ConcurrentHashMap<>();
+
+	public AdmissionController(
+			@Value("${rag.admission.enabled:true}") boolean enabled,
+			@Value("${rag.admission.initial-limit:32}") int initialLimit,
+			@Value("${rag.admission.min-limit:4}") int minLimit,
+			@Value("${rag.admission.max-limit:512}") int maxLimit,
+			@Value("${rag.admission.backoff-ratio:0.9}") double backoffRatio,
+			@Value("${rag.admission.per-user-max:4}") int perUserMax,
+			@Value("${rag.admission.rewrite.target-latency-millis:3000}") long rewriteTargetMillis,
+			@Value("${rag.admission.route.target-latency-millis:20000}") long routeTargetMillis
+	) {
+		this.enabled = enabled;
+		this.perUserMax = perUserMax;
+		limiters.put(Stage.REWRITE, new StageLimiter(initialLimit, minLimit, maxLimit, backoffRatio, rewriteTargetMillis));
+		limiters.put(Stage.ROUTE, new StageLimiter(initialLimit, minLimit, maxLimit, backoffRatio, routeTargetMillis));
+	}
+
+	/**
+	 * 단계 진입 승인
+	 *
+	 * @throws AdmissionRejectedException 사용자별 또는 단계별 상한 초과
+	 */
+	public Permit admit(Stage stage, String userId) {
+		if (!enabled) return NOOP;
+
+		String user = userId == null ? "anonymous" : userId;
+		StageLimiter limiter = limiters.get(stage);
+
+		if (!tryAcquireUser(user)) {
+			throw reject(stage, user, "per-user limit " + perUserMax, limiter);
+		}
+		if (!limiter.tryAcquire()) {
+			releaseUser(user);
+			throw reject(stage, user, "stage limit " + limiter.limit(), limiter);
+		}
+
+		long start = System.nanoTime();
+		AtomicBoolean closed = new AtomicBoolean(false);
+		return () -> {
+			if (closed.compareAndSet(false, true)) {
+				limiter.onComplete(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				releaseUser(user);
+			}
+		};
+	}
+
+	public Snapshot snapshot(Stage stage) {
+		StageLimiter l = limiters.get(stage);
+		synchronized (l) {
+			return new Snapshot(stage, l.limit(), l.inFlight, Math.round(l.ewmaLatencyMillis));
+		}
+	}
+
+	/** 현재 사용자 in-flight 수 (테스트/모니터링용) */
+	int userInFlight(String user) {
+		return perUser.getOrDefault(user, 0);
+	}
+
+	private boolean tryAcquireUser(String user) {
+		boolean[] admitted = {false};
+		perUser.compute(user, (k, c) -> {
+			int current = c == null ? 0 : c;
+			if (current >= perUserMax) return c;
+			admitted[0] = true;
+			return current + 1;
+		});
+		return admitted[0];
+	}
+
+	private void releaseUser(String user) {
+		perUser.computeIfPresent(user, (k, c) -> c <= 1 ? null : c - 1);
+	}
+
+	private AdmissionRejectedException reject(Stage stage, String user, String reason, StageLimiter limiter) {
+		long retryAfter = Math.min(MAX_RETRY_AFTER_SECONDS,
+				Math.max(1, (long) Math.ceil(limiter.avgLatencyMillis() / 1000.0)));
+		log.warn("🚦 admission rejected (stage={}, userId={}, reason={}, retryAfter={}s)", stage, user, reason, retryAfter);
+		return new AdmissionRejectedException(stage.name(), user, reason, retryAfter);
+	}
+
+	/**
+	 * 단계별 AIMD 동시성 상한
+	 */
+	static final class StageLimiter {
+		private final int minLimit;
+		private final int maxLimit;
+		private final double backoffRatio;
+		private final long targetLatencyMillis;
+
+		private double limit;
+		private int inFlight;
+		private double ewmaLatencyMillis;
+
+		StageLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long targetLatencyMillis) {
+			this.minLimit = Math.max(1, minLimit);
+			this.maxLimit = Math.max(this.minLimit, maxLimit);
+			this.backoffRatio = backoffRatio;
+			this.targetLatencyMillis = targetLatencyMillis;
+			this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+		}
+
+		synchronized boolean tryAcquire() {
+			if (inFlight >= (int) limit) return false;
+			inFlight++;
+			return true;
+		}
+
+		synchronized void onComplete(long latencyMillis) {
+			int observedInFlight = inFlight;
+			inFlight = Math.max(0, inFlight - 1);
+			ewmaLatencyMillis = ewmaLatencyMillis == 0
+					? latencyMillis
+					: 0.8 * ewmaLatencyMillis + 0.2 * latencyMillis;
+
+			if (latencyMillis > targetLatencyMillis) {
+				limit = Math.max(minLimit, limit * backoffRatio);             // multiplicative decrease
+			} else if (observedInFlight * 2 >= limit) {
+				limit = Math.min(maxLimit, limit + 1);                       // additive increase
+			}
+		}
+
+		synchronized int limit() {
+			return (int) limit;
+		}
+
+		synchronized double avgLatencyMillis() {
+			return ewmaLatencyMillis;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * byte-level BPE 토크나이저 (tiktoken cl100k_base / o200k_base 호환)
+ *
+ * <p>어휘 파일은 tiktoken 형식: 한 줄에 "base64(토큰 바이트) 랭크"
+ * - 정규식으로 pre-tokenize → 조각별 UTF-8 바이트에 랭크가 가장 낮은 인접 쌍부터 병합
+ * - 조각 전체가 어휘에 있으면 병합 없이 1 토큰
+ * - 특수 토큰(&lt;|endoftext|&gt; 등)은 일반 텍스트로 취급
+ */
+public final class BpeTokenizer implements Tokenizer {
+
+    public enum Encoding {
+        CL100K("(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+"),
+        O200K("[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+
+        private final Pattern pattern;
+
+        Encoding(String regex) {
+            this.pattern = Pattern.compile(regex);
+        }
+    }
+
+    // 키: 토큰 바이트를 ISO-8859-1 문자열로 (바이트 ↔ char 1:1)
+    private final Map<String, Integer> ranks;
+    private final Pattern pattern;
+
+    BpeTokenizer(Map<String, Integer> ranks, Encoding encoding) {
+        this.ranks = ranks;
+        this.pattern = encoding.pattern;
+    }
+
+    /**
+     * tiktoken 어휘 로드
+     *
+     * @throws IOException 읽기 실패 또는 형식 오류
+     */
+    public static BpeTokenizer load(InputStream vocab, Encoding encoding) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(256 * 1024);
+        Base64.Decoder decoder = Base64.getDecoder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(vocab, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                int sp = line.indexOf(' ');
+                if (sp <= 0) {
+                    throw new IOException("Malformed vocab line: " + line);
+                }
+                byte[] token = decoder.decode(line.substring(0, sp));
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1), Integer.parseInt(line.substring(sp + 1).trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed vocab: " + e.getMessage(), e);
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("Empty vocab");
+        }
+        return new BpeTokenizer(ranks, encoding);
+    }
+
+    public int vocabSize() {
+        return ranks.size();
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        int tokens = 0;
+        Matcher m = pattern.matcher(text);
+        while (m.find()) {
+            tokens += countPiece(m.group().getBytes(StandardCharsets.UTF_8));
+        }
+        return tokens;
+    }
+
+    private int countPiece(byte[] bytes) {
+        int n = bytes.length;
+        if (n <= 1 || ranks.containsKey(key(bytes, 0, n))) {
+            return n == 0 ? 0 : 1;
+        }
+
+        // starts[0..parts]: 각 조각의 시작 오프셋 (마지막은 n)
+        int[] starts = new int[n + 1];
+        for (int i = 0; i <= n; i++) starts[i] = i;
+        int parts = n;
+
+        while (parts > 1) {
+            int bestRank = Integer.MAX_VALUE;
+            int bestIdx = -1;
+            for (int i = 0; i < parts - 1; i++) {
+                Integer rank = ranks.get(key(bytes, starts[i], starts[i + 2]));
+                if (rank != null && rank < bestRank) {
+                    bestRank = rank;
+                    bestIdx = i;
+                }
+            }
+            if (bestIdx < 0) break;
+            // bestIdx 와 bestIdx+1 조각 병합 → 경계 하나 제거
+            System.arraycopy(starts, bestIdx + 2, starts, bestIdx + 1, parts - bestIdx - 1);
+            parts--;
+        }
+        return parts;
+    }
+
+    private static String key(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,406 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.BulkIngestStatusDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestReqDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobAlreadyRunningException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobNotFoundException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkPayloadTooLargeException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+
+/**
+ * 대량 문서 색인 (NDJSON/JSONL 스트리밍)
+ *
+ * <p>요청 본문을 한 줄씩 읽어({@link DocumentIngestReqDto} 한 건 = 한 줄) 청크로 나누고,
+ * embed-batch-size 개가 모일 때마다 embedDocuments 한 번 → ES _bulk 한 번으로 색인한다.
+ * - _bulk 는 bulkIndexExecutor 에서 비동기로 실행, 동시 진행 배치는 bulk.max-in-flight 개까지
+ *   (가득 차면 읽기 스레드가 대기 → 메모리는 문서 수와 무관하게 배치 몇 개 분량)
+ * - 다음 배치 임베딩과 이전 배치 _bulk 가 겹쳐서 진행
+ * - 진행 상황은 jobId 로 조회 ({@link #status(String)})
+ * - 본문은 bulk.max-bytes 까지만 읽고(초과 시 413), 한 줄은 bulk.max-line-chars 까지만 메모리에 올린다
+ * <p>단건 색인과 달리 재색인 시 줄어든 뒤쪽 청크는 지우지 않는다 (초기 적재용).
+ */
+@Slf4j
+@Service
+public class BulkIngestionService {
+
+	public enum State { RUNNING, COMPLETED, FAILED }
+
+	private static final int MAX_JOBS = 100;
+	private static final long PROGRESS_LOG_EVERY = 10_000;
+
+	private final DocumentChunker documentChunker;
+	private final EmbeddingService embeddingService;
+	private final ElasticsearchOperations esOps;
+	private final DownstreamLimiter downstreamLimiter;
+	private final ObjectMapper objectMapper;
+	private final Executor bulkIndexExecutor;
+	private final int embedBatchSize;
+	private final int maxInFlight;
+	private final int maxErrors;
+	private final long maxBytes;
+	private final int maxLineChars;
+
+	// 진행 중인 작업 (완료될 때까지 제거되지 않음, 같은 jobId 중복 실행 방지)
+	private final ConcurrentHashMap<String, Job> running = new ConcurrentHashMap<>();
+	// 완료된 작업 (최근 MAX_JOBS 개, 완료 후 job-ttl 동안 조회 가능)
+	private final BoundedCache<String, Job> finished;
+
+	public BulkIngestionService(
+			DocumentChunker documentChunker,
+			EmbeddingService embeddingService,
+			ElasticsearchOperations esOps,
+			DownstreamLimiter downstreamLimiter,
+			ObjectMapper objectMapper,
+			@Qualifier("bulkIndexExecutor") Executor bulkIndexExecutor,
+			@Value("${rag.ingest.embed-batch-size:64}") int embedBatchSize,
+			@Value("${rag.ingest.bulk.max-in-flight:4}") int maxInFlight,
+			@Value("${rag.ingest.bulk.max-errors:20}") int maxErrors,
+			@Value("${rag.ingest.bulk.job-ttl-millis:86400000}") long jobTtlMillis,
+			@Value("${rag.ingest.bulk.max-bytes:536870912}") long maxBytes,
+			@Value("${rag.ingest.bulk.max-line-chars:1048576}") int maxLineChars
+	) {
+		this.documentChunker = documentChunker;
+		this.embeddingService = embeddingService;
+		this.esOps = esOps;
+		this.downstreamLimiter = downstreamLimiter;
+		this.objectMapper = objectMapper;
+		this.bulkIndexExecutor = bulkIndexExecutor;
+		this.embedBatchSize = Math.max(1, embedBatchSize);
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.maxErrors = Math.max(0, maxErrors);
+		this.maxBytes = Math.max(1, maxBytes);
+		this.maxLineChars = Math.max(1, maxLineChars);
+		this.finished = new BoundedCache<>(MAX_JOBS, Duration.ofMillis(jobTtlMillis), null, null);
+	}
+
+	/**
+	 * 스트림 끝까지 읽어 색인 (호출 스레드에서 실행, 모든 _bulk 완료 후 반환)
+	 *
+	 * @param jobId 진행 조회용 id (null/blank 면 생성)
+	 * @param ndjson 한 줄에 문서 JSON 하나
+	 * @return 최종 진행 상황
+	 * @throws BulkJobAlreadyRunningException 같은 jobId 작업이 진행 중
+	 * @throws BulkPayloadTooLargeException    본문이 max-bytes 초과 (그 전까지 읽은 줄은 색인됨)
+	 */
+	public BulkIngestStatusDto ingest(String jobId, InputStream ndjson) {
+		String id = (jobId == null || jobId.isBlank()) ? UUID.randomUUID().toString() : jobId;
+		Job job = new Job(id, maxErrors);
+		if (running.putIfAbsent(id, job) != null) {
+			throw new BulkJobAlreadyRunningException(id);
+		}
+		log.info("📦 Bulk ingest started: job={}", id);
+
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		List<PendingChunk> pending = new ArrayList<>(embedBatchSize);
+		long lineNo = 0;
+		try (LineReader reader = new LineReader(
+				new InputStreamReader(new LimitedInputStream(ndjson, id, maxBytes), StandardCharsets.UTF_8),
+				maxLineChars)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNo++;
+				if (line.isBlank()) continue;
+				job.lines.incrementAndGet();
+				if (reader.truncated()) {
+					job.failLine(lineNo, "line exceeds " + maxLineChars + " chars");
+					continue;
+				}
+
+				DocumentIngestReqDto doc;
+				try {
+					doc = objectMapper.readValue(line, DocumentIngestReqDto.class);
+				} catch (JsonProcessingException e) {
+					job.failLine(lineNo, "malformed JSON: " + e.getOriginalMessage());
+					continue;
+				}
+				if (doc.content() == null || doc.content().isBlank()) {
+					job.failLine(lineNo, "blank content");
+					continue;
+				}
+
+				String parentId = (doc.id() == null || doc.id().isBlank()) ? UUID.randomUUID().toString() : doc.id();
+				for (DocumentChunker.Chunk chunk : documentChunker.split(doc.content())) {
+					pending.add(new PendingChunk(parentId, doc.title(), doc.url(), chunk));
+					if (pending.size() >= embedBatchSize) {
+						flush(job, pending, inFlight);
+						pending = new ArrayList<>(embedBatchSize);
+					}
+				}
+				if (job.documents.incrementAndGet() % PROGRESS_LOG_EVERY == 0) {
+					log.info("📦 Bulk ingest progress: job={}, documents={}, indexed chunks={}",
+							id, job.documents.get(), job.indexedChunks.get());
+				}
+			}
+			if (!pending.isEmpty()) {
+				flush(job, pending, inFlight);
+			}
+			awaitInFlight(inFlight);
+			job.finish(State.COMPLETED);
+		} catch (IOException e) {
+			awaitInFlight(inFlight);
+			job.error("read failed at line " + lineNo + ": " + e.getMessage());
+			job.finish(State.FAILED);
+			log.error("❌ Bulk ingest failed: job={}, line={}", id, lineNo, e);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			awaitInFlight(inFlight);
+			job.error("aborted at line " + lineNo + ": " + e.getMessage());
+			job.finish(State.FAILED);
+			log.error("❌ Bulk ingest failed: job={}, line={}", id, lineNo, e);
+			throw e;
+		} finally {
+			// 완료 목록에 먼저 넣고 진행 목록에서 빼야 조회가 끊기지 않음 (완료 시점부터 TTL)
+			finished.put(id, job);
+			running.remove(id, job);
+		}
+
+		BulkIngestStatusDto status = job.snapshot();
+		log.info("✅ Bulk ingest completed: {}", status);
+		return status;
+	}
+
+	/** 진행 상황 조회 */
+	public BulkIngestStatusDto status(String jobId) {
+		Job job = running.get(jobId);
+		if (job == null) {
+			job = finished.get(jobId);
+		}
+		if (job == null) {
+			throw new BulkJobNotFoundException(jobId);
+		}
+		return job.snapshot();
+	}
+
+	/** 배치 임베딩(호출 스레드) → _bulk 비동기 제출 (in-flight 허가를 얻을 때까지 대기) */
+	private void flush(Job job, List<PendingChunk> batch, Semaphore inFlight) {
+		job.chunks.addAndGet(batch.size());
+		List<EmbeddingResultDto> embeddings = embeddingService.embedDocuments(
+				batch.stream().map(p -> p.chunk().text()).toList());
+
+		List<IndexQuery> queries = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			EmbeddingResultDto embedding = embeddings.get(i);
+			if (embedding == null || embedding.isZero()) {
+				job.skippedChunks.incrementAndGet();
+				continue;
+			}
+			PendingChunk p = batch.get(i);
+			String chunkId = DocumentIngestionService.chunkId(p.parentId(), p.chunk().index());
+			queries.add(new IndexQueryBuilder()
+					.withId(chunkId)
+					.withObject(DocumentEntity.builder()
+							.id(chunkId)
+							.title(p.title())
+							.content(p.chunk().text())
+							.url(p.url())
+							.tokenCount(p.chunk().tokenCount())
+							.parentId(p.parentId())
+							.chunkIndex(p.chunk().index())
+							.embedding(embedding.vector())
+							.build())
+					.build());
+		}
+		if (queries.isEmpty()) return;
+
+		inFlight.acquireUninterruptibly();
+		try {
+			CompletableFuture.runAsync(() -> {
+				try {
+					bulkIndex(job, queries);
+				} finally {
+					inFlight.release();
+				}
+			}, bulkIndexExecutor);
+		} catch (RuntimeException e) {
+			// 실행기 포화 등 제출 실패
+			inFlight.release();
+			job.failChunks(queries.size(), "bulk submit failed: " + e.getMessage());
+		}
+	}
+
+	private void bulkIndex(Job job, List<IndexQuery> queries) {
+		try {
+			downstreamLimiter.call(DownstreamLimiter.Downstream.ES, "bulk",
+					() -> esOps.bulkIndex(queries, DocumentEntity.class));
+			job.indexedChunks.addAndGet(queries.size());
+		} catch (BulkFailureException e) {
+			int failed = e.getFailedDocuments().size();
+			job.indexedChunks.addAndGet(queries.size() - failed);
+			job.failChunks(failed, "bulk partially failed: " + e.getMessage());
+		} catch (RuntimeException e) {
+			job.failChunks(queries.size(), "bulk failed: " + e.getMessage());
+			log.warn("⚠️ Bulk index failed: job={}, chunks={}", job.id, queries.size(), e);
+		}
+	}
+
+	private void awaitInFlight(Semaphore inFlight) {
+		inFlight.acquireUninterruptibly(maxInFlight);
+		inFlight.release(maxInFlight);
+	}
+
+	/** 본문 바이트 상한 (초과 시 BulkPayloadTooLargeException) */
+	private static final class LimitedInputStream extends FilterInputStream {
+		private final String jobId;
+		private final long max;
+		private long count;
+
+		LimitedInputStream(InputStream in, String jobId, long max) {
+			super(in);
+			this.jobId = jobId;
+			this.max = max;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0 && ++count > max) throw new BulkPayloadTooLargeException(jobId, max);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			// 상한 + 1 바이트까지만 요청 → 초과 여부만 확인하고 더 읽지 않음
+			int n = super.read(b, off, (int) Math.min(len, max - count + 1));
+			if (n > 0 && (count += n) > max) throw new BulkPayloadTooLargeException(jobId, max);
+			return n;
+		}
+	}
+
+	/**
+	 * 줄 단위 읽기 (\n / \r\n). maxChars 를 넘는 부분은 버리고 truncated() 로 표시
+	 * → 줄바꿈 없는 거대한 한 줄이 메모리에 통째로 올라오지 않음
+	 */
+	private static final class LineReader implements AutoCloseable {
+		private final Reader in;
+		private final int maxChars;
+		private final char[] buf = new char[8192];
+		private int pos;
+		private int len;
+		private boolean truncated;
+
+		LineReader(Reader in, int maxChars) {
+			this.in = in;
+			this.maxChars = maxChars;
+		}
+
+		String readLine() throws IOException {
+			StringBuilder line = new StringBuilder();
+			truncated = false;
+			boolean any = false;
+			while (true) {
+				if (pos >= len) {
+					len = in.read(buf, 0, buf.length);
+					pos = 0;
+					if (len <= 0) {
+						len = 0;
+						return any ? finish(line) : null;
+					}
+				}
+				any = true;
+				int start = pos;
+				while (pos < len && buf[pos] != '\n') pos++;
+				int keep = Math.min(pos - start, maxChars - line.length());
+				if (keep < pos - start) truncated = true;
+				line.append(buf, start, keep);
+				if (pos < len) {
+					pos++; // '\n'
+					return finish(line);
+				}
+			}
+		}
+
+		boolean truncated() {
+			return truncated;
+		}
+
+		private static String finish(StringBuilder line) {
+			int n = line.length();
+			return n > 0 && line.charAt(n - 1) == '\r' ? line.substring(0, n - 1) : line.toString();
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	private record PendingChunk(String parentId, String title, String url, DocumentChunker.Chunk chunk) {}
+
+	/** 작업별 카운터 (읽기 스레드와 _bulk 스레드가 함께 갱신) */
+	private static final class Job {
+		private final String id;
+		private final long startedAt = System.nanoTime();
+		private final int maxErrors;
+		private final AtomicLong lines = new AtomicLong();
+		private final AtomicLong documents = new AtomicLong();
+		private final AtomicLong chunks = new AtomicLong();
+		private final AtomicLong indexedChunks = new AtomicLong();
+		private final AtomicLong skippedChunks = new AtomicLong();
+		private final AtomicLong failedChunks = new AtomicLong();
+		private final AtomicLong failedLines = new AtomicLong();
+		private final List<String> errors = new ArrayList<>();
+		private volatile State state = State.RUNNING;
+		private volatile long finishedAt;
+
+		Job(String id, int maxErrors) {
+			this.id = id;
+			this.maxErrors = maxErrors;
+		}
+
+		void failLine(long lineNo, String reason) {
+			failedLines.incrementAndGet();
+			error("line " + lineNo + ": " + reason);
+		}
+
+		void failChunks(int count, String reason) {
+			failedChunks.addAndGet(count);
+			error(reason);
+		}
+
+		synchronized void error(String message) {
+			if (errors.size() < maxErrors) {
+				errors.add(message);
+			}
+		}
+
+		void finish(State state) {
+			this.finishedAt = System.nanoTime();
+			this.state = state;
+		}
+
+		synchronized BulkIngestStatusDto snapshot() {
+			long end = state == State.RUNNING ? System.nanoTime() : finishedAt;
+			return new BulkIngestStatusDto(id, state.name(), lines.get(), documents.get(), chunks.get(),
+					indexedChunks.get(), skippedChunks.get(), failedChunks.get(), failedLines.get(),
+					List.copyOf(errors), (end - startedAt) / 1_000_000);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 토큰 예산 내 context 문서 선택
+ *
+ * <p>rag.context.packing
+ * - greedy: 점수 순으로 넣다가 처음 넘치는 문서에서 중단 (기존 동작)
+ * - knapsack (기본): 0/1 배낭 DP로 예산 내 관련도 합 최대화
+ *   → 큰 문서 하나 때문에 뒤쪽의 작은 관련 문서가 버려지지 않음
+ * <p>rag.context.mmr-lambda &lt; 1 이면 MMR로 중복 내용을 감점한 점수로 선택
+ * (문서 간 유사도: snippet 단어 집합 Jaccard)
+ * <p>선택 결과는 입력(관련도) 순서를 유지한다.
+ */
+@Slf4j
+@Component
+public class ContextPacker {
+
+    public enum Strategy { GREEDY, KNAPSACK }
+
+    // DP 용량 칸 수 상한 (예산이 크면 토큰을 묶어서 계산)
+    private static final int MAX_CAPACITY_CELLS = 4096;
+    // MMR 유사도 계산에 쓰는 snippet 앞부분 단어 수
+    private static final int MMR_MAX_TERMS = 256;
+
+    private final Strategy strategy;
+    private final double mmrLambda;
+
+    public ContextPacker(
+            @Value("${rag.context.packing:knapsack}") String strategy,
+            @Value("${rag.context.mmr-lambda:1.0}") double mmrLambda
+    ) {
+        this.strategy = Strategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT));
+        this.mmrLambda = Math.max(0.0, Math.min(1.0, mmrLambda));
+    }
+
+    /**
+     * @param docs      후보 문서 (관련도 순)
+     * @param maxTokens 토큰 예산
+     * @param weigher   문서별 예상 토큰 수
+     * @return 선택된 문서 (입력 순서 유지)
+     */
+    public List<RetrievedDocumentDto> pack(List<RetrievedDocumentDto> docs, int maxTokens,
+                                           ToIntFunction<RetrievedDocumentDto> weigher) {
+        if (docs == null || docs.isEmpty() || maxTokens <= 0) {
+            return List.of();
+        }
+
+        int n = docs.size();
+        int[] weights = new int[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = Math.max(0, weigher.applyAsInt(docs.get(i)));
+        }
+        double[] values = mmrLambda < 1.0 ? mmrValues(docs) : scores(docs);
+
+        boolean[] chosen = strategy == Strategy.GREEDY
+                ? greedy(weights, maxTokens)
+                : knapsack(weights, values, maxTokens);
+
+        List<RetrievedDocumentDto> result = new ArrayList<>();
+        int used = 0;
+        for (int i = 0; i < n; i++) {
+            if (chosen[i]) {
+                result.add(docs.get(i));
+                used += weights[i];
+            }
+        }
+        log.info("Context packing ({}{}): {} / {} docs, estimated {} tokens (limit: {})",
+                strategy, mmrLambda < 1.0 ? ", mmr λ=" + mmrLambda : "",
+                result.size(), n, used, maxTokens);
+        return result;
+    }
+
+    /** 첫 번째로 넘치는 문서에서 중단 */
+    static boolean[] greedy(int[] weights, int capacity) {
+        boolean[] chosen = new boolean[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (total + weights[i] > capacity) break;
+            chosen[i] = true;
+            total += weights[i];
+        }
+        return chosen;
+    }
+
+    /**
+     * 0/1 배낭: O(n × 용량칸). 용량칸이 {@link #MAX_CAPACITY_CELLS}를 넘으면 무게를 올림 단위로 묶는다
+     * (올림이라 선택 결과는 항상 예산 이내).
+     */
+    static boolean[] knapsack(int[] weights, double[] values, int capacity) {
+        int n = weights.length;
+        int unit = Math.max(1, (capacity + MAX_CAPACITY_CELLS - 1) / MAX_CAPACITY_CELLS);
+        int cells = capacity / unit;
+
+        double[] best = new double[cells + 1];
+        boolean[][] take = new boolean[n][cells + 1];
+        for (int i = 0; i < n; i++) {
+            int w = (weights[i] + unit - 1) / unit;
+            if (w > cells || values[i] <= 0) continue;
+            for (int c = cells; c >= w; c--) {
+                double candidate = best[c - w] + values[i];
+                if (candidate > best[c]) {
+                    best[c] = candidate;
+                    take[i][c] = true;
+                }
+            }
+        }
+
+        boolean[] chosen = new boolean[n];
+        int c = cells;
+        for (int i = n - 1; i >= 0; i--) {
+            if (take[i][c]) {
+                chosen[i] = true;
+                c -= (weights[i] + unit - 1) / unit;
+            }
+        }
+        return chosen;
+    }
+
+    private static double[] scores(List<RetrievedDocumentDto> docs) {
+        double[] values = new double[docs.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = docs.get(i).score();
+        }
+        return values;
+    }
+
+    /**
+     * MMR 순서로 훑으며 각 문서의 한계 가치 계산:
+     * λ·score − (1−λ)·max(이미 뽑힌 문서와의 유사도)
+     */
+    private double[] mmrValues(List<RetrievedDocumentDto> docs) {
+        int n = docs.size();
+        List<Set<String>> terms = new ArrayList<>(n);
+        for (RetrievedDocumentDto doc : docs) {
+            terms.add(terms(doc.snippet()));
+        }
+
+        double[] values = new double[n];
+        double[] maxSim = new double[n];
+        boolean[] ranked = new boolean[n];
+        for (int round = 0; round < n; round++) {
+            int pick = -1;
+            double pickValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (ranked[i]) continue;
+                double v = mmrLambda * docs.get(i).score() - (1 - mmrLambda) * maxSim[i];
+                if (v > pickValue) {
+                    pickValue = v;
+                    pick = i;
+                }
+            }
+            ranked[pick] = true;
+            values[pick] = pickValue;
+            for (int i = 0; i < n; i++) {
+                if (!ranked[i]) {
+                    maxSim[i] = Math.max(maxSim[i], jaccard(terms.get(i), terms.get(pick)));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> out = new HashSet<>();
+        if (text == null) return out;
+        int start = -1;
+        for (int i = 0, len = text.length(); i <= len && out.size() < MMR_MAX_TERMS; i++) {
+            boolean letter = i < len && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) return 0.0;
+        Set<String> small = a.size() <= b.size() ? a : b;
+        Set<String> large = small == a ? b : a;
+        int common = 0;
+        for (String t : small) {
+            if (large.contains(t)) common++;
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+}
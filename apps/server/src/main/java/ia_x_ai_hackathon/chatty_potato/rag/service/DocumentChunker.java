@@ -0,0 +1,143 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 색인용 문서 분할기 (토큰 상한 + 겹침)
+ *
+ * <p>- 문장(. ! ? 。 뒤 공백, 줄바꿈) 단위로 나눈 뒤 chunk-tokens 이하로 묶는다
+ * - 다음 청크는 직전 청크 끝 문장들(overlap-tokens 이하)을 다시 포함해 문맥이 끊기지 않게 한다
+ * - 상한보다 긴 문장은 단어 단위로, 단어도 넘치면 글자 단위로 자른다
+ * - 토큰 수는 {@link TokenCounter} 기준
+ */
+@Component
+public class DocumentChunker {
+
+    public record Chunk(int index, String text, int tokenCount) {}
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public DocumentChunker(
+            @Value("${rag.ingest.chunk-tokens:300}") int maxTokens,
+            @Value("${rag.ingest.chunk-overlap-tokens:50}") int overlapTokens
+    ) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+    }
+
+    public List<Chunk> split(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        List<String> units = new ArrayList<>();
+        for (String sentence : sentences(text)) {
+            if (TokenCounter.count(sentence) > maxTokens) {
+                splitLong(sentence, units);
+            } else {
+                units.add(sentence);
+            }
+        }
+        int[] tokens = new int[units.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = TokenCounter.count(units.get(i));
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < units.size()) {
+            int end = start;
+            int total = 0;
+            while (end < units.size() && (end == start || total + tokens[end] <= maxTokens)) {
+                total += tokens[end++];
+            }
+            String chunkText = String.join(" ", units.subList(start, end));
+            chunks.add(new Chunk(chunks.size(), chunkText, TokenCounter.count(chunkText)));
+            if (end >= units.size()) break;
+
+            // 끝 문장들을 겹침으로 되돌리되 최소 한 문장은 전진
+            int next = end;
+            int overlap = 0;
+            while (next - 1 > start && overlap + tokens[next - 1] <= overlapTokens) {
+                overlap += tokens[--next];
+            }
+            start = next;
+        }
+        return chunks;
+    }
+
+    /** 문장 경계: 종결 부호 뒤 공백, 또는 줄바꿈 */
+    private static List<String> sentences(String text) {
+        List<String> out = new ArrayList<>();
+        int from = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            boolean boundary = c == '\n'
+                    || ((c == '.' || c == '!' || c == '?' || c == '。')
+                        && (i + 1 == n || Character.isWhitespace(text.charAt(i + 1))));
+            if (boundary) {
+                addTrimmed(out, text, from, i + 1);
+                from = i + 1;
+            }
+        }
+        addTrimmed(out, text, from, text.length());
+        return out;
+    }
+
+    private static void addTrimmed(List<String> out, String text, int from, int to) {
+        String s = text.substring(from, to).strip();
+        if (!s.isEmpty()) out.add(s);
+    }
+
+    /** 상한을 넘는 문장 → 단어 단위로 묶고, 한 단어가 넘치면 글자 단위로 자름 */
+    private void splitLong(String sentence, List<String> out) {
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String word : sentence.split("\\s+")) {
+            int wordTokens = TokenCounter.count(word);
+            if (wordTokens > maxTokens) {
+                if (!current.isEmpty()) {
+                    out.add(current.toString());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                for (int i = 0; i < word.length(); i += maxTokens) {
+                    hardSplit(word.substring(i, Math.min(word.length(), i + maxTokens)), out);
+                }
+                continue;
+            }
+            if (currentTokens + wordTokens > maxTokens && !current.isEmpty()) {
+                out.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            if (!current.isEmpty()) current.append(' ');
+            current.append(word);
+            currentTokens += wordTokens;
+        }
+        if (!current.isEmpty()) out.add(current.toString());
+    }
+
+    /**
+     * maxTokens 글자 조각을 다시 세어 넘치면 반으로 나눈다
+     * (bpe 모드에서는 한 글자가 여러 토큰일 수 있음)
+     */
+    private void hardSplit(String piece, List<String> out) {
+        if (piece.length() <= 1 || TokenCounter.count(piece) <= maxTokens) {
+            out.add(piece);
+            return;
+        }
+        int mid = piece.length() / 2;
+        if (Character.isHighSurrogate(piece.charAt(mid - 1))) mid++;   // 서로게이트 쌍은 자르지 않음
+        if (mid >= piece.length()) {
+            out.add(piece);
+            return;
+        }
+        hardSplit(piece.substring(0, mid), out);
+        hardSplit(piece.substring(mid), out);
+    }
+}
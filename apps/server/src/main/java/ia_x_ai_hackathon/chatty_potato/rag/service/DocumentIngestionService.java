@@ -0,0 +1,106 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestReqDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestResDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.EmbeddingUnavailableException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.InvalidDocumentException;
+import ia_x_ai_hackathon.chatty_potato.rag.repository.DocumentRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 문서 색인 (청크 단위)
+ *
+ * <p>원문 → {@link DocumentChunker}로 토큰 상한 청크 분할 → {@link EmbeddingService#embedDocuments}로
+ * embed-batch-size 개씩 임베딩 → 청크마다 DocumentEntity 한 건으로 저장.
+ * 검색은 청크를 그대로 반환하므로 snippet이 이미 짧아 질의 시 요약이 거의 필요 없다.
+ * <p>같은 id로 다시 색인하면 청크를 덮어쓰고, 저장이 끝난 뒤에만 줄어든 뒤쪽 청크의 이전 색인본을 삭제한다.
+ * <p>청크 하나라도 임베딩에 실패(제로 벡터)하면 아무것도 쓰거나 지우지 않고 {@link EmbeddingUnavailableException}(503)
+ * → 임베딩 장애 중 재색인이 기존 색인본을 지우지 않음
+ */
+@Slf4j
+@Service
+public class DocumentIngestionService {
+
+	static final String CHUNK_ID_SEPARATOR = "#";
+
+	private final DocumentChunker documentChunker;
+	private final EmbeddingService embeddingService;
+	private final DocumentRepository documentRepository;
+	private final int embedBatchSize;
+
+	public DocumentIngestionService(
+			DocumentChunker documentChunker,
+			EmbeddingService embeddingService,
+			DocumentRepository documentRepository,
+			@Value("${rag.ingest.embed-batch-size:64}") int embedBatchSize
+	) {
+		this.documentChunker = documentChunker;
+		this.embeddingService = embeddingService;
+		this.documentRepository = documentRepository;
+		this.embedBatchSize = Math.max(1, embedBatchSize);
+	}
+
+	public DocumentIngestResDto ingest(DocumentIngestReqDto req) {
+		String parentId = (req.id() == null || req.id().isBlank()) ? UUID.randomUUID().toString() : req.id();
+		if (req.content() == null || req.content().isBlank()) {
+			throw new InvalidDocumentException(parentId, "Document content must not be blank");
+		}
+
+		List<DocumentChunker.Chunk> chunks = documentChunker.split(req.content());
+		List<DocumentEntity> entities = new ArrayList<>(chunks.size());
+		int failedChunks = 0;
+		int totalTokens = 0;
+
+		for (int from = 0; from < chunks.size(); from += embedBatchSize) {
+			List<DocumentChunker.Chunk> batch = chunks.subList(from, Math.min(chunks.size(), from + embedBatchSize));
+			List<EmbeddingResultDto> embeddings = embeddingService.embedDocuments(
+					batch.stream().map(DocumentChunker.Chunk::text).toList());
+
+			for (int i = 0; i < batch.size(); i++) {
+				DocumentChunker.Chunk chunk = batch.get(i);
+				EmbeddingResultDto embedding = embeddings.get(i);
+				// 임베딩 실패(제로 벡터)는 kNN에서 의미 없는 결과만 내므로 색인하지 않음
+				if (embedding == null || embedding.isZero()) {
+					failedChunks++;
+					continue;
+				}
+				entities.add(DocumentEntity.builder()
+						.id(chunkId(parentId, chunk.index()))
+						.title(req.title())
+						.content(chunk.text())
+						.url(req.url())
+						.tokenCount(chunk.tokenCount())
+						.parentId(parentId)
+						.chunkIndex(chunk.index())
+						.embedding(embedding.vector())
+						.build());
+				totalTokens += chunk.tokenCount();
+			}
+		}
+
+		// 일부 청크만 쓰면 옛 본문과 새 본문이 섞이므로 쓰기 전에 요청 전체를 실패 처리 (기존 색인본 유지)
+		if (failedChunks > 0) {
+			log.warn("⚠️ Ingest aborted for document {}: {}/{} chunk embeddings failed",
+					parentId, failedChunks, chunks.size());
+			throw new EmbeddingUnavailableException(parentId, failedChunks);
+		}
+
+		documentRepository.saveAll(entities);
+		// 저장이 끝난 뒤에만 줄어든 뒤쪽 청크의 이전 색인본 정리
+		documentRepository.deleteByParentIdAndChunkIndexGreaterThanEqual(parentId, chunks.size());
+
+		log.info("📥 Ingested document {}: {} chunks ({} tokens)", parentId, entities.size(), totalTokens);
+		return new DocumentIngestResDto(parentId, entities.size(), totalTokens);
+	}
+
+	static String chunkId(String parentId, int chunkIndex) {
+		return parentId + CHUNK_ID_SEPARATOR + chunkIndex;
+	}
+}
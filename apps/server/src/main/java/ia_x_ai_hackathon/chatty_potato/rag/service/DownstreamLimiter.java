@@ -0,0 +1,122 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.exception.DownstreamBusyException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 외부 의존성(LLM / 임베딩 / ES)별 동시 호출 수 제한
+ *
+ * <p>가상 스레드 모드에서는 스레드 풀이 더 이상 동시성 상한 역할을 하지 않으므로,
+ * 실제 병목인 다운스트림 단위로 세마포어를 둔다.
+ * - 허용량을 넘으면 acquireTimeout 동안 대기 후 {@link DownstreamBusyException}
+ *
+ * <p>모든 다운스트림 호출은 "rag.downstream" Observation(span)으로 감싼다
+ * (contextualName = operation, 허가 대기 시간 포함) → 태스크별 워터폴에서 병목 확인
+ */
+@Slf4j
+@Component
+public class DownstreamLimiter {
+
+	public enum Downstream { LLM, EMBEDDING, ES }
+
+	/** try-with-resources / Flux.using 용 허가 핸들 */
+	public interface Permit extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	public static final String OBSERVATION_NAME = "rag.downstream";
+
+	private final Map<Downstream, Semaphore> semaphores = new EnumMap<>(Downstream.class);
+	private final long acquireTimeoutMillis;
+	private final ObservationRegistry observationRegistry;
+
+	public DownstreamLimiter(
+			ObservationRegistry observationRegistry,
+			@Value("${rag.limiter.llm.max-concurrency:32}") int llmMaxConcurrency,
+			@Value("${rag.limiter.embedding.max-concurrency:16}") int embeddingMaxConcurrency,
+			@Value("${rag.limiter.es.max-concurrency:64}") int esMaxConcurrency,
+			@Value("${rag.limiter.acquire-timeout-millis:10000}") long acquireTimeoutMillis
+	) {
+		semaphores.put(Downstream.LLM, new Semaphore(Math.max(1, llmMaxConcurrency), true));
+		semaphores.put(Downstream.EMBEDDING, new Semaphore(Math.max(1, embeddingMaxConcurrency), true));
+		semaphores.put(Downstream.ES, new Semaphore(Math.max(1, esMaxConcurrency), true));
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.observationRegistry = observationRegistry;
+	}
+
+	/** 제한 없는 인스턴스 (테스트/단독 사용) */
+	public static DownstreamLimiter unlimited() {
+		return new DownstreamLimiter(ObservationRegistry.NOOP, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+	}
+
+	public Permit acquire(Downstream downstream) {
+		Semaphore semaphore = semaphores.get(downstream);
+		try {
+			if (!semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("🚦 {} limiter saturated (waited {} ms)", downstream, acquireTimeoutMillis);
+				throw new DownstreamBusyException(downstream.name(), acquireTimeoutMillis);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DownstreamBusyException(downstream.name(), 0);
+		}
+		return semaphore::release;
+	}
+
+	/**
+	 * 허가 + span 시작 (스트리밍처럼 호출 범위가 메서드를 벗어나는 경우)
+	 * close 시 허가 반환 후 span 종료
+	 */
+	public Permit acquire(Downstream downstream, String operation) {
+		Observation observation = observation(downstream, operation).start();
+		Permit permit;
+		try {
+			permit = acquire(downstream);
+		} catch (RuntimeException e) {
+			observation.error(e);
+			observation.stop();
+			throw e;
+		}
+		return () -> {
+			permit.close();
+			observation.stop();
+		};
+	}
+
+	/** 허가 + span 안에서 동기 호출 */
+	public <T> T call(Downstream downstream, String operation, Supplier<T> work) {
+		return observation(downstream, operation).observe(() -> {
+			try (Permit ignored = acquire(downstream)) {
+				return work.get();
+			}
+		});
+	}
+
+	/** 허가 없이 span만 (호출 측 대기 구간 기록용, 예: 코얼레서 결과 대기) */
+	public <T, E extends Throwable> T observe(Downstream downstream, String operation,
+											  Observation.CheckedCallable<T, E> work) throws E {
+		return observation(downstream, operation).observeChecked(work);
+	}
+
+	private Observation observation(Downstream downstream, String operation) {
+		return Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+				.contextualName(operation)
+				.lowCardinalityKeyValue("downstream", downstream.name().toLowerCase())
+				.lowCardinalityKeyValue("operation", operation);
+	}
+
+	/** 현재 남은 허가 수 (모니터링용) */
+	public int available(Downstream downstream) {
+		return semaphores.get(downstream).availablePermits();
+	}
+}
@@ -0,0 +1,143 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 동시에 들어오는 단건 임베딩 요청을 묶어 한 번의 배치 호출로 보내는 코얼레서
+ *
+ * <p>동작:
+ * - 첫 요청 도착 후 windowMillis 동안(또는 maxBatch개가 찰 때까지) 요청을 모음
+ * - 같은 텍스트는 한 번만 전송하고 결과를 모든 호출자에게 분배
+ * - 동시에 진행 중인 배치 호출 수는 maxInFlight로 제한 (provider rate limit 보호)
+ */
+@Slf4j
+final class EmbeddingCoalescer implements AutoCloseable {
+
+    private record Pending(String text, CompletableFuture<float[]> future) {}
+
+    private final Function<List<String>, List<float[]>> batchCall;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final Semaphore inFlight;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    /**
+     * @param batchCall 텍스트 리스트 → 같은 순서의 벡터 리스트 (누락 시 null)
+     */
+    EmbeddingCoalescer(Function<List<String>, List<float[]>> batchCall,
+                       long windowMillis, int maxBatch, int maxInFlight) {
+        this.batchCall = batchCall;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+
+        AtomicInteger seq = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, maxInFlight), r -> {
+            Thread t = new Thread(r, "emb-batch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher = new Thread(this::loop, "emb-coalescer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    CompletableFuture<float[]> submit(String text) {
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Embedding coalescer is closed"));
+            return future;
+        }
+        queue.add(new Pending(text, future));
+        return future;
+    }
+
+    private void loop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running) {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                inFlight.acquire();
+                List<Pending> toSend = List.copyOf(batch);
+                batch.clear();
+                dispatcher.execute(() -> {
+                    try {
+                        dispatch(toSend);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 종료 시 남은 요청 실패 처리
+        batch.addAll(queue);
+        queue.clear();
+        batch.forEach(p -> p.future().completeExceptionally(
+                new IllegalStateException("Embedding coalescer is closed")));
+    }
+
+    private void dispatch(List<Pending> batch) {
+        // 같은 텍스트는 한 번만 전송
+        Map<String, List<CompletableFuture<float[]>>> byText = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            byText.computeIfAbsent(p.text(), k -> new ArrayList<>(1)).add(p.future());
+        }
+        List<String> texts = new ArrayList<>(byText.keySet());
+
+        try {
+            List<float[]> vectors = batchCall.apply(texts);
+            log.debug("Coalesced embedding batch: {} requests → {} texts", batch.size(), texts.size());
+
+            for (int i = 0; i < texts.size(); i++) {
+                float[] vector = i < vectors.size() ? vectors.get(i) : null;
+                for (CompletableFuture<float[]> f : byText.get(texts.get(i))) {
+                    if (vector != null) {
+                        f.complete(vector);
+                    } else {
+                        f.completeExceptionally(new IllegalStateException("Missing embedding in batch response"));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Coalesced embedding batch failed ({} texts): {}", texts.size(), e.getMessage());
+            byText.values().forEach(fs -> fs.forEach(f -> f.completeExceptionally(e)));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        flusher.interrupt();
+        dispatcher.shutdown();
+    }
+}
@@ -1,15 +1,28 @@
 package ia_x_ai_hackathon.chatty_potato.rag.service;
 
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.store.CompactVector;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 /**
  * AWS Bedrock Titan Embeddings를 사용한 임베딩 서비스
@@ -22,11 +35,56 @@ public class EmbeddingService {
 
 	private final VectorStoreService vectorStoreService;
     private final EmbeddingModel embeddingModel;
+	private final DownstreamLimiter downstreamLimiter;
 	private static final int EMBEDDING_DIMENSIONS = 1024;
 
-	public EmbeddingService(@Qualifier("openAiEmbeddingModel") EmbeddingModel embeddingModel, VectorStoreService vectorStoreService) {
+	// 캐시 항목당 대략적인 크기: float 1024개 + 키/객체 오버헤드
+	private static final int CACHE_ENTRY_OVERHEAD_BYTES = 256;
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final EmbeddingResultDto ZERO_VECTOR =
+			new EmbeddingResultDto(EmbeddingResultDto.ZERO_ID, CompactVector.zeros(EMBEDDING_DIMENSIONS), EMBEDDING_DIMENSIONS);
+
+	// 정규화된 쿼리 텍스트 → 임베딩
+	private final BoundedCache<String, EmbeddingResultDto> cache;
+	// 캐시된 벡터를 off-heap(direct buffer)에 보관할지 여부
+	private final boolean cacheOffHeap;
+
+	// 단건 임베딩 요청 묶음 처리 (비활성 시 null)
+	private final EmbeddingCoalescer coalescer;
+	private final long coalesceTimeoutMillis;
+
+	// 모델 호출 실패로 제로 벡터를 반환한 횟수 (지표용)
+	private final LongAdder zeroVectorFallbacks = new LongAdder();
+
+	public EmbeddingService(
+			@Qualifier("openAiEmbeddingModel") EmbeddingModel embeddingModel,
+			VectorStoreService vectorStoreService,
+			DownstreamLimiter downstreamLimiter,
+			@Value("${rag.embedding-cache.max-bytes:67108864}") long cacheMaxBytes,
+			@Value("${rag.embedding-cache.ttl-millis:3600000}") long cacheTtlMillis,
+			@Value("${rag.embedding-cache.off-heap:false}") boolean cacheOffHeap,
+			@Value("${rag.embedding.coalesce.enabled:true}") boolean coalesceEnabled,
+			@Value("${rag.embedding.coalesce.window-millis:5}") long coalesceWindowMillis,
+			@Value("${rag.embedding.coalesce.max-batch:64}") int coalesceMaxBatch,
+			@Value("${rag.embedding.coalesce.max-in-flight:4}") int coalesceMaxInFlight,
+			@Value("${rag.embedding.coalesce.timeout-millis:10000}") long coalesceTimeoutMillis
+	) {
 		this.embeddingModel = embeddingModel;
 		this.vectorStoreService = vectorStoreService;
+		this.downstreamLimiter = downstreamLimiter;
+
+		int maxEntries = (int) Math.max(1,
+				cacheMaxBytes / ((long) EMBEDDING_DIMENSIONS * Float.BYTES + CACHE_ENTRY_OVERHEAD_BYTES));
+		this.cache = new BoundedCache<>(maxEntries, Duration.ofMillis(cacheTtlMillis), null, null);
+		this.cacheOffHeap = cacheOffHeap;
+		log.info("Embedding cache: maxEntries={} (~{} MB, offHeap={})",
+				maxEntries, cacheMaxBytes / (1024 * 1024), cacheOffHeap);
+
+		this.coalescer = coalesceEnabled
+				? new EmbeddingCoalescer(this::callModel, coalesceWindowMillis, coalesceMaxBatch, coalesceMaxInFlight)
+				: null;
+		this.coalesceTimeoutMillis = coalesceTimeoutMillis;
 	}
 
     /**
@@ -41,82 +99,195 @@ public class EmbeddingService {
             return createZeroVector();
         }
 
-        try {
-            log.debug("Embedding text: '{}'", truncate(text, 50));
+        // 캐시 키 = 모델에 보내는 텍스트 (대소문자는 의미가 다를 수 있어 보존)
+        String normalized = normalize(text);
+
+        EmbeddingResultDto cached = cache.get(normalized);
+        if (cached != null) {
+            log.debug("Embedding cache hit: '{}'", truncate(normalized, 50));
+            return cached;
+        }
 
-            // Spring AI의 EmbeddingRequest 사용
-            EmbeddingResponse response = embeddingModel.call(
-                    new EmbeddingRequest(List.of(text), null)
-            );
+        try {
+            log.debug("Embedding text: '{}'", truncate(normalized, 50));
 
-            // 첫 번째 결과 추출
-            float[] vector = response.getResults().get(0).getOutput();
+            // 동시 요청은 코얼레서가 하나의 배치 호출로 묶음
+            // (코얼레서 배치 스레드에는 호출자 trace가 없으므로 호출 측 대기를 span으로 기록)
+            float[] vector = coalescer != null
+                    ? downstreamLimiter.observe(DownstreamLimiter.Downstream.EMBEDDING, "embed",
+                            () -> coalescer.submit(normalized).get(coalesceTimeoutMillis, TimeUnit.MILLISECONDS))
+                    : callModel(List.of(normalized)).get(0);
 
-            String embeddingId = generateEmbeddingId(text);
+            String embeddingId = generateEmbeddingId(normalized);
 
             log.debug("Embedding created: id={}, dimensions={}", embeddingId, vector.length);
 
-            return new EmbeddingResultDto(embeddingId, vector, vector.length);
+            // 모델 응답 배열은 새로 할당된 것이므로 복사 없이 소유권 이전
+            EmbeddingResultDto result = new EmbeddingResultDto(embeddingId, CompactVector.wrap(vector), vector.length);
+            if (cacheOffHeap) {
+                result = result.offHeap();
+            }
+            cache.put(normalized, result); // 실패(제로 벡터)는 캐싱하지 않음
+            return result;
 
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.error("Embedding failed for text: '{}'. Error: {}",
                     truncate(text, 50), e.getMessage(), e);
 
             // 실패 시 제로 벡터 반환 (안정성)
+            zeroVectorFallbacks.increment();
             return createZeroVector();
         }
     }
 
+    /**
+     * 모델 배치 호출: 입력 순서대로 벡터 반환 (응답 index 기준 재정렬)
+     */
+    private List<float[]> callModel(List<String> texts) {
+        EmbeddingResponse response = downstreamLimiter.call(DownstreamLimiter.Downstream.EMBEDDING, "embed-batch",
+                () -> embeddingModel.call(new EmbeddingRequest(texts, null)));
+
+        float[][] vectors = new float[texts.size()][];
+        for (Embedding embedding : response.getResults()) {
+            vectors[embedding.getIndex()] = embedding.getOutput();
+        }
+        return Arrays.asList(vectors);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
     /**
      * 배치 임베딩: 여러 텍스트를 한 번에 변환
      *
+     * <p>캐시 히트는 그대로 쓰고, 미스만 모아 모델을 한 번 호출한다 (입력 순서 보존).
+     * 빈 텍스트는 제로 벡터.
+     *
      * @param texts 임베딩할 텍스트 리스트
-     * @return 임베딩 결과 리스트
+     * @return 임베딩 결과 리스트 (texts와 같은 순서)
      */
     public List<EmbeddingResultDto> embedBatch(List<String> texts) {
+        return embedBatch(texts, true);
+    }
+
+    /**
+     * 색인용 배치 임베딩: 질의 임베딩 캐시를 읽지도 채우지도 않음
+     * (대량 적재가 자주 쓰는 질의 벡터를 캐시에서 밀어내지 않도록)
+     *
+     * @param texts 문서/청크 텍스트 리스트
+     * @return 임베딩 결과 리스트 (texts와 같은 순서, 실패 시 제로 벡터)
+     */
+    public List<EmbeddingResultDto> embedDocuments(List<String> texts) {
+        return embedBatch(texts, false);
+    }
+
+    private List<EmbeddingResultDto> embedBatch(List<String> texts, boolean useCache) {
         if (texts == null || texts.isEmpty()) {
             log.warn("Empty texts received for batch embedding");
             return List.of();
         }
 
-        log.info("Batch embedding: {} texts", texts.size());
-
-        try {
-            // Spring AI는 배치 요청 지원
-            EmbeddingResponse response = embeddingModel.call(
-                    new EmbeddingRequest(texts, null)
-            );
-
-            // 각 결과를 EmbeddingResultDto로 변환
-            List<EmbeddingResultDto> results = response.getResults().stream()
-                    .map(result -> {
-                        float[] vector = result.getOutput();
-                        String id = generateEmbeddingId(texts.get(result.getIndex()));
-                        return new EmbeddingResultDto(id, vector, vector.length);
-                    })
-                    .collect(Collectors.toList());
+        EmbeddingResultDto[] results = new EmbeddingResultDto[texts.size()];
+        // 정규화 텍스트 → 결과를 채울 입력 위치들 (같은 텍스트는 한 번만 요청)
+        Map<String, List<Integer>> misses = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                results[i] = createZeroVector();
+                continue;
+            }
+            String normalized = normalize(text);
+            EmbeddingResultDto cached = useCache ? cache.get(normalized) : null;
+            if (cached != null) {
+                results[i] = cached;
+            } else {
+                misses.computeIfAbsent(normalized, k -> new ArrayList<>()).add(i);
+            }
+        }
 
-            log.info("Batch embedding completed: {} results", results.size());
+        log.info("Batch embedding: {} texts ({} cache misses)", texts.size(), misses.size());
+        if (misses.isEmpty()) {
+            return Arrays.asList(results);
+        }
 
-            return results;
+        List<String> pending = new ArrayList<>(misses.keySet());
+        try {
+            List<float[]> vectors = callModel(pending);
+            for (int j = 0; j < pending.size(); j++) {
+                String normalized = pending.get(j);
+                float[] vector = vectors.get(j);
+                EmbeddingResultDto result = new EmbeddingResultDto(
+                        generateEmbeddingId(normalized), CompactVector.wrap(vector), vector.length);
+                if (useCache) {
+                    if (cacheOffHeap) {
+                        result = result.offHeap();
+                    }
+                    cache.put(normalized, result);
+                }
+                for (int i : misses.get(normalized)) {
+                    results[i] = result;
+                }
+            }
+            log.info("Batch embedding completed: {} model inputs", pending.size());
 
         } catch (Exception e) {
             log.error("Batch embedding failed: {}", e.getMessage(), e);
 
             // 실패 시 각 텍스트를 개별적으로 임베딩 (fallback)
             log.warn("Falling back to individual embeddings");
-            return texts.stream()
-                    .map(this::embed)
-                    .collect(Collectors.toList());
+            for (String normalized : pending) {
+                EmbeddingResultDto result = useCache ? embed(normalized) : embedUncached(normalized);
+                for (int i : misses.get(normalized)) {
+                    results[i] = result;
+                }
+            }
         }
+        return Arrays.asList(results);
+    }
+
+    /** 캐시/코얼레서를 거치지 않는 단건 임베딩 (색인 fallback) */
+    private EmbeddingResultDto embedUncached(String normalized) {
+        try {
+            float[] vector = callModel(List.of(normalized)).get(0);
+            return new EmbeddingResultDto(generateEmbeddingId(normalized), CompactVector.wrap(vector), vector.length);
+        } catch (Exception e) {
+            log.error("Embedding failed for text: '{}'. Error: {}", truncate(normalized, 50), e.getMessage(), e);
+            zeroVectorFallbacks.increment();
+            return createZeroVector();
+        }
+    }
+
+    /**
+     * 임베딩 캐시 통계 (hit ratio 포함)
+     */
+    public BoundedCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    public long zeroVectorFallbacks() {
+        return zeroVectorFallbacks.sum();
+    }
+
+    /**
+     * 캐시 키/요청용 텍스트 정규화: NFKC + 공백 정리
+     */
+    static String normalize(String text) {
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(nfkc).replaceAll(" ").trim();
     }
 
     /**
      * 제로 벡터 생성 (에러 핸들링용)
      */
     private EmbeddingResultDto createZeroVector() {
-        float[] zeroVector = new float[EMBEDDING_DIMENSIONS];
-        return new EmbeddingResultDto("zero", zeroVector, EMBEDDING_DIMENSIONS);
+        return ZERO_VECTOR; // 읽기 전용이므로 공유
     }
 
     /**
@@ -0,0 +1,64 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * 파이프라인 단계별 지연 측정 (Micrometer)
+ *
+ * <p>rag.stage.latency{stage=rewrite|cache-lookup|retrieve|augment|prompt-assembly|prompt-build|prompt-wait|generate|stream}
+ * - p50/p95/p99 + Prometheus 히스토그램 버킷
+ * - 실행기 큐 대기/실행 시간은 {@link #recordQueueWait}/{@link #recordExecution}으로 별도 기록
+ */
+@Component
+public class RagMetrics {
+
+	public static final String STAGE_LATENCY = "rag.stage.latency";
+	public static final String EXECUTOR_QUEUE_WAIT = "rag.executor.queue.wait";
+	public static final String EXECUTOR_EXECUTION = "rag.executor.execution";
+
+	private final MeterRegistry registry;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	public RagMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	public <T> T time(String stage, Supplier<T> work) {
+		long start = System.nanoTime();
+		try {
+			return work.get();
+		} finally {
+			record(stage, System.nanoTime() - start);
+		}
+	}
+
+	public void record(String stage, long nanos) {
+		timer(STAGE_LATENCY, "stage", stage).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordQueueWait(String executor, long nanos) {
+		timer(EXECUTOR_QUEUE_WAIT, "executor", executor).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordExecution(String executor, long nanos) {
+		timer(EXECUTOR_EXECUTION, "executor", executor).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public MeterRegistry registry() {
+		return registry;
+	}
+
+	private Timer timer(String name, String tagKey, String tagValue) {
+		return timers.computeIfAbsent(name + '|' + tagValue, k -> Timer.builder(name)
+				.tag(tagKey, tagValue)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.register(registry));
+	}
+}
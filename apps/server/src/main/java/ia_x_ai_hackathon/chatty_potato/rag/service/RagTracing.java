@@ -0,0 +1,70 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 파이프라인 trace/span 헬퍼
+ *
+ * <p>- rewrite 요청의 traceId를 슬롯에 저장 → route 요청 span에 연결 태그로 남김
+ * - 비동기 단계(prompt-build)를 span으로 감쌈 (executor의 ContextPropagatingTaskDecorator로 부모 span 유지)
+ * - 트레이싱이 꺼져 있으면(Tracer 빈 없음) traceId는 null, span은 no-op
+ */
+@Component
+public class RagTracing {
+
+	public static final String TASK_TRACE_ID = "rag.task.trace_id";
+
+	private final ObservationRegistry observationRegistry;
+	private final Supplier<Tracer> tracer;
+
+	@Autowired
+	public RagTracing(ObservationRegistry observationRegistry, ObjectProvider<Tracer> tracerProvider) {
+		this(observationRegistry, tracerProvider::getIfAvailable);
+	}
+
+	private RagTracing(ObservationRegistry observationRegistry, Supplier<Tracer> tracer) {
+		this.observationRegistry = observationRegistry;
+		this.tracer = tracer;
+	}
+
+	/** 트레이싱 비활성 인스턴스 (테스트/단독 사용) */
+	public static RagTracing noop() {
+		return new RagTracing(ObservationRegistry.NOOP, () -> null);
+	}
+
+	/** 현재 스레드의 traceId (없으면 null) */
+	public String currentTraceId() {
+		Tracer t = tracer.get();
+		Span span = t == null ? null : t.currentSpan();
+		return span == null ? null : span.context().traceId();
+	}
+
+	public <T> T observe(String name, String contextualName, String taskId, Supplier<T> work) {
+		return Observation.createNotStarted(name, observationRegistry)
+				.contextualName(contextualName)
+				.highCardinalityKeyValue("rag.task.id", String.valueOf(taskId))
+				.observe(work);
+	}
+
+	public void observe(String name, String contextualName, String taskId, Runnable work) {
+		observe(name, contextualName, taskId, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/** 현재 span에 태그 추가 (route 요청 ↔ rewrite trace 연결용) */
+	public void tagCurrent(String key, String value) {
+		Observation current = observationRegistry.getCurrentObservation();
+		if (current != null && value != null) {
+			current.highCardinalityKeyValue(key, value);
+		}
+	}
+}
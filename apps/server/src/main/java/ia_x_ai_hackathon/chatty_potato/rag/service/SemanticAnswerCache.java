@@ -0,0 +1,205 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto.Citation;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.SemanticCacheEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.repository.SemanticCacheRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.stereotype.Service;
+
+/**
+ * 시맨틱 답변 캐시
+ *
+ * <p>재작성 질의(rewrittenQuery)의 임베딩과 답변을 함께 저장하고,
+ * 새 질의가 코사인 임계값 이상으로 가까우면 저장된 답변/인용을 그대로 반환한다.
+ * → 거의 같은 질문은 검색/요약/생성 전체를 건너뜀
+ *
+ * <p>저장 위치: 전용 인덱스 {@link SemanticCacheEntity} (지식 문서용 벡터스토어 인덱스와 분리
+ * → VectorStoreService 검색 결과에 캐시 답변이 문서로 섞이지 않음)
+ * <p>캐시는 사용자별로 분리된다 (userId 필터) → 다른 사용자의 생성 답변을 돌려주지 않음
+ * <p>조회/저장 모두 호출 측이 이미 계산한 질의 임베딩을 그대로 사용 (재임베딩 없음)
+ * → 미스 후 검색 단계도 같은 임베딩을 재사용 (질의 임베딩 1회)
+ */
+@Slf4j
+@Service
+public class SemanticAnswerCache {
+
+    static final String VECTOR_FIELD = "embedding";
+    private static final int NUM_CANDIDATES = 50;
+
+    /** 캐시 히트 결과 */
+    public record Hit(String matchedQuery, String answer, List<Citation> citations, double similarity) {}
+
+    private final SemanticCacheRepository repository;
+    private final ElasticsearchOperations esOps;
+    private final boolean enabled;
+    private final double threshold;
+    private final long maxAgeMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SemanticAnswerCache(
+            SemanticCacheRepository repository,
+            ElasticsearchOperations esOps,
+            @Value("${rag.semantic-cache.enabled:true}") boolean enabled,
+            @Value("${rag.semantic-cache.threshold:0.95}") double threshold,
+            @Value("${rag.semantic-cache.max-age-millis:86400000}") long maxAgeMillis
+    ) {
+        this.repository = repository;
+        this.esOps = esOps;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * 임계값 이상으로 가까운 이전 질의의 답변 조회 (실패/미스 시 empty)
+     *
+     * @param userId         조회 사용자 (같은 사용자가 저장한 답변만 대상, null 이면 조회 생략)
+     * @param rewrittenQuery 재작성 질의 (로그용)
+     * @param embedding      재작성 질의 임베딩 (제로 벡터면 조회 생략)
+     */
+    public Optional<Hit> lookup(String userId, String rewrittenQuery, EmbeddingResultDto embedding) {
+        if (!enabled || userId == null || rewrittenQuery == null || rewrittenQuery.isBlank()
+                || embedding == null || embedding.isZero()) {
+            return Optional.empty();
+        }
+
+        try {
+            String filter = "userId:\"" + escape(userId) + "\""
+                    + (maxAgeMillis > 0 ? " AND createdAtEpoch:>=" + (System.currentTimeMillis() - maxAgeMillis) : "");
+            NativeQuery query = NativeQuery.builder()
+                    .withQuery(q -> q
+                            .knn(knn -> knn
+                                    .field(VECTOR_FIELD)
+                                    .queryVector(embedding.values().asList())
+                                    .k(1)
+                                    .numCandidates(NUM_CANDIDATES)
+                                    .similarity((float) threshold)   // cosine 원값 기준
+                                    .filter(f -> f.queryString(qs -> qs.query(filter)))
+                            )
+                    )
+                    .withSourceFilter(new FetchSourceFilterBuilder().withExcludes(VECTOR_FIELD).build())
+                    .withMaxResults(1)
+                    .build();
+
+            SearchHits<SemanticCacheEntity> found = esOps.search(query, SemanticCacheEntity.class);
+            if (!found.hasSearchHits()) {
+                misses.increment();
+                return Optional.empty();
+            }
+
+            SearchHit<SemanticCacheEntity> top = found.getSearchHit(0);
+            SemanticCacheEntity entry = top.getContent();
+            // cosine _score = (1 + cos) / 2
+            double similarity = 2.0 * top.getScore() - 1.0;
+            String answer = entry.getAnswer();
+            if (similarity < threshold || answer == null || answer.isBlank()) {
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+
+            log.info("🎯 Semantic cache hit (sim={}, query='{}' ≈ '{}')",
+                    "%.3f".formatted(similarity), rewrittenQuery, entry.getQuery());
+            return Optional.of(new Hit(entry.getQuery(), answer, toCitations(entry.getCitations()), similarity));
+        } catch (Exception e) {
+            // 캐시 장애는 파이프라인을 막지 않음
+            log.warn("Semantic cache lookup failed: {}", e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 답변 저장 (호출 측이 계산한 질의 임베딩으로 색인, 재임베딩 없음)
+     *
+     * @param embedding 재작성 질의 임베딩 (없거나 제로 벡터면 저장 생략)
+     */
+    public void put(String userId, String rewrittenQuery, String originalQuery, EmbeddingResultDto embedding,
+                    String answer, List<Citation> citations) {
+        if (!enabled || userId == null || rewrittenQuery == null || rewrittenQuery.isBlank()
+                || answer == null || answer.isBlank() || embedding == null || embedding.isZero()) {
+            return;
+        }
+
+        SemanticCacheEntity entry = SemanticCacheEntity.builder()
+                .userId(userId)
+                .query(rewrittenQuery)
+                .originalQuery(originalQuery)
+                .answer(answer)
+                .citations(fromCitations(citations))
+                .createdAtEpoch(System.currentTimeMillis())
+                .embedding(embedding.vector())
+                .build();
+
+        try {
+            repository.save(entry);
+            log.debug("💾 Semantic cache stored (query='{}', {} chars)", rewrittenQuery, answer.length());
+        } catch (Exception e) {
+            // 저장 실패해도 이미 생성된 답변은 그대로 반환
+            log.warn("Semantic cache store failed: {}", e.getMessage());
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // ===== citations <-> 저장 형식 (ES에는 JSON object 리스트로 저장) =====
+
+    static List<Map<String, Object>> fromCitations(List<Citation> citations) {
+        if (citations == null) return List.of();
+        List<Map<String, Object>> out = new ArrayList<>(citations.size());
+        for (Citation c : citations) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", c.id());
+            m.put("title", c.title());
+            m.put("score", c.score());
+            m.put("snippet", c.snippet());
+            out.add(m);
+        }
+        return out;
+    }
+
+    static List<Citation> toCitations(Object raw) {
+        if (!(raw instanceof List<?> list)) return List.of();
+        List<Citation> out = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (!(o instanceof Map<?, ?> m)) continue;
+            out.add(new Citation(
+                    asString(m.get("id")),
+                    asString(m.get("title")),
+                    m.get("score") instanceof Number n ? n.doubleValue() : 0.0,
+                    asString(m.get("snippet"))
+            ));
+        }
+        return out;
+    }
+
+    // query_string 구문용 따옴표 안 이스케이프
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String asString(Object o) {
+        return o == null ? null : o.toString();
+    }
+}
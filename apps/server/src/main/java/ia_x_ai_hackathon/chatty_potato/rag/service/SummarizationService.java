@@ -1,10 +1,25 @@
 package ia_x_ai_hackathon.chatty_potato.rag.service;
 
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -14,6 +29,9 @@ import org.springframework.stereotype.Service;
  * <p>요약 기준:
  * - 2000자(~1000 토큰) 이상인 문서만 요약
  * - 요약 후 목표: 512 토큰 이하
+ *
+ * <p>캐시 조회는 문서당 한 번만 하고, 같은 문서(SummaryCache 키)를 동시에 요약하는 요청은
+ * 진행 중인 LLM 호출 하나를 함께 기다린다 (single-flight).
  */
 @Slf4j
 @Service
@@ -22,48 +40,36 @@ public class SummarizationService {
 
     private final ChatClient chatClient;
 
+    @Qualifier("summarizationExecutor")
+    private final Executor summarizationExecutor;
+
+    // 문서별 요약 데드라인: 초과 시 원본 snippet으로 대체하고 진행 중인 LLM 호출은 인터럽트
+    @Value("${rag.summarization.doc-timeout-millis:8000}")
+    private final long docTimeoutMillis;
+
+    private final SummaryCache summaryCache;
+    private final DownstreamLimiter downstreamLimiter;
+
+    // LLM 요약 호출 횟수 / 누적 시간 (지표용)
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder invocationNanos = new LongAdder();
+    // 진행 중인 호출에 합류해 LLM 호출을 생략한 횟수
+    private final LongAdder coalesced = new LongAdder();
+
+    // 진행 중인 요약 (SummaryCache 키 → 요약문 future), 완료 시 제거
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
     private static final int SUMMARIZE_THRESHOLD_CHARS = 1250; // 2000자 이상이면 요약
     private static final int MAX_SNIPPET_TOKENS = 1100;          // 요약 후 최대 토큰
 
     /**
-     * 문서가 길면 요약, 짧으면 그대로 반환
+     * 문서가 길면 요약, 짧으면 그대로 반환 (배치와 같은 경로: 캐시 → single-flight → 데드라인)
      *
      * @param doc 원본 문서
      * @return 요약된 문서 또는 원본 문서
      */
     public RetrievedDocumentDto summarizeIfNeeded(RetrievedDocumentDto doc) {
-        if (doc.snippet() == null || doc.snippet().length() < SUMMARIZE_THRESHOLD_CHARS) {
-            log.debug("Doc[{}] is short ({} chars), skipping summarization",
-                    doc.id(), doc.snippet() != null ? doc.snippet().length() : 0);
-            return doc;
-        }
-
-        try {
-            log.debug("Summarizing doc[{}]: {} chars -> target {} tokens",
-                    doc.id(), doc.snippet().length(), MAX_SNIPPET_TOKENS);
-
-            String summary = summarize(doc.snippet());
-
-            int originalTokens = TokenCounter.count(doc.snippet());
-            int summaryTokens = TokenCounter.count(summary);
-
-            log.info("Summarized doc[{}]: {} -> {} tokens ({} chars -> {} chars)",
-                    doc.id(), originalTokens, summaryTokens,
-                    doc.snippet().length(), summary.length());
-
-            return new RetrievedDocumentDto(
-                    doc.id(),
-                    doc.title(),
-                    summary,
-                    doc.url(),  // ✅ url 필드 추가
-                    doc.score()
-            );
-
-        } catch (Exception e) {
-            log.warn("Summarization failed for doc[{}]: {}. Using original snippet.",
-                    doc.id(), e.getMessage());
-            return doc; // ✅ 실패 시 원본 반환 (안정성)
-        }
+        return summarizeAsync(doc).join();
     }
 
     /**
@@ -80,15 +86,36 @@ public class SummarizationService {
                 %s
                 """.formatted(MAX_SNIPPET_TOKENS, text);
 
-        return chatClient.prompt(prompt)
-                .call()
-                .content()
-                .trim();
+        long start = System.nanoTime();
+        try {
+            return downstreamLimiter.call(DownstreamLimiter.Downstream.LLM, "summarize",
+                    () -> chatClient.prompt(prompt).call().content()).trim();
+        } finally {
+            invocations.increment();
+            invocationNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public long invocations() {
+        return invocations.sum();
+    }
+
+    public long invocationNanos() {
+        return invocationNanos.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
     }
 
     /**
      * 여러 문서를 한꺼번에 요약 처리
      *
+     * <p>요약이 필요한 문서만 summarizationExecutor에서 동시에 요약한다.
+     * - 입력 순서 보존
+     * - 문서별 데드라인 초과/실패/큐 포화 시 원본 snippet 사용
+     * - 전체 소요 시간 ≈ 가장 느린 단일 요약 시간
+     *
      * @param docs 원본 문서 리스트
      * @return 요약된 문서 리스트 (일부는 원본 그대로)
      */
@@ -101,24 +128,115 @@ public class SummarizationService {
 
         long startTime = System.currentTimeMillis();
 
-        List<RetrievedDocumentDto> result = docs.stream()
-                .map(this::summarizeIfNeeded)
+        List<CompletableFuture<RetrievedDocumentDto>> futures = new ArrayList<>(docs.size());
+        for (RetrievedDocumentDto doc : docs) {
+            futures.add(summarizeAsync(doc));
+        }
+
+        List<RetrievedDocumentDto> result = futures.stream()
+                .map(CompletableFuture::join)
                 .toList();
 
         long elapsedMs = System.currentTimeMillis() - startTime;
-        long summarizedCount = result.stream()
-                .filter(doc -> !doc.snippet().equals(
-                        docs.stream()
-                                .filter(orig -> orig.id().equals(doc.id()))
-                                .findFirst()
-                                .map(RetrievedDocumentDto::snippet)
-                                .orElse("")
-                ))
-                .count();
+        long summarizedCount = 0;
+        for (int i = 0; i < docs.size(); i++) {
+            if (result.get(i) != docs.get(i)) summarizedCount++;
+        }
 
         log.info("Summarization batch completed: {} out of {} docs summarized in {}ms",
                 summarizedCount, docs.size(), elapsedMs);
 
         return result;
     }
-}
\ No newline at end of file
+
+    private CompletableFuture<RetrievedDocumentDto> summarizeAsync(RetrievedDocumentDto doc) {
+        if (!needsSummary(doc)) {
+            log.debug("Doc[{}] is short ({} chars), skipping summarization",
+                    doc.id(), doc.snippet() != null ? doc.snippet().length() : 0);
+            return CompletableFuture.completedFuture(doc);
+        }
+
+        // 캐시 조회는 여기서 한 번만 (히트는 executor를 거치지 않고 즉시 반환)
+        String cached = summaryCache.get(doc.id(), doc.snippet());
+        if (cached != null) {
+            log.debug("Summary cache hit for doc[{}]", doc.id());
+            return CompletableFuture.completedFuture(doc.withSnippet(cached));
+        }
+
+        return summaryFor(doc)
+                .thenApply(summary -> {
+                    RetrievedDocumentDto summarized = doc.withSnippet(summary);
+                    log.info("Summarized doc[{}]: {} -> {} tokens ({} chars -> {} chars)",
+                            doc.id(), doc.tokenCount(), summarized.tokenCount(),
+                            doc.snippet().length(), summary.length());
+                    return summarized;
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Summarization for doc[{}] exceeded {} ms. Using original snippet.",
+                                doc.id(), docTimeoutMillis);
+                    } else {
+                        log.warn("Summarization failed for doc[{}]: {}. Using original snippet.",
+                                doc.id(), cause.getMessage());
+                    }
+                    return doc; // ✅ 실패 시 원본 반환 (안정성)
+                });
+    }
+
+    /**
+     * 같은 키의 요약이 진행 중이면 그 future에 합류, 아니면 summarizationExecutor에서 새로 요약
+     *
+     * <p>데드라인(doc-timeout-millis)이 지나면 기다리던 요청은 모두 원본으로 대체되고,
+     * 작업 스레드를 인터럽트해 LLM 응답(또는 LLM 허가) 대기를 끊는다 → 작업 스레드와 LLM 허가를 즉시 반환.
+     * 큐에서 아직 시작하지 않은 작업은 실행되지 않는다.
+     */
+    private CompletableFuture<String> summaryFor(RetrievedDocumentDto doc) {
+        String key = SummaryCache.key(doc.id(), doc.snippet());
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            log.debug("Joining in-flight summarization for doc[{}]", doc.id());
+            return existing;
+        }
+        FutureTask<String> call = new FutureTask<>(() -> {
+            log.debug("Summarizing doc[{}]: {} chars -> target {} tokens",
+                    doc.id(), doc.snippet().length(), MAX_SNIPPET_TOKENS);
+            String summary = summarize(doc.snippet());
+            summaryCache.put(doc.id(), doc.snippet(), summary);
+            return summary;
+        });
+        flight.whenComplete((summary, e) -> {
+            inFlight.remove(key, flight);
+            if (e instanceof TimeoutException) {
+                call.cancel(true);
+            }
+        });
+
+        try {
+            summarizationExecutor.execute(() -> {
+                call.run();
+                try {
+                    flight.complete(call.get());
+                } catch (ExecutionException e) {
+                    flight.completeExceptionally(e.getCause());
+                } catch (CancellationException e) {
+                    Thread.interrupted(); // 데드라인 취소의 인터럽트가 다음 작업으로 새지 않도록
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    flight.completeExceptionally(e);
+                }
+            });
+            flight.orTimeout(docTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Summarization executor saturated, using original snippet for doc[{}]", doc.id());
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+
+    private boolean needsSummary(RetrievedDocumentDto doc) {
+        return doc.snippet() != null && doc.snippet().length() >= SUMMARIZE_THRESHOLD_CHARS;
+    }
+}
@@ -0,0 +1,143 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 문서 요약 결과 캐시 (content-addressed)
+ *
+ * <p>키: SHA-256(docId + snippet) → 같은 문서의 같은 본문이면 LLM 재호출 없이 재사용
+ * <p>정책:
+ * - 최대 항목 수 / TTL 제한 ({@link BoundedCache})
+ * - rag.summary-cache.path 지정 시 디스크에 스냅샷 저장 → 재시작 후에도 유지
+ */
+@Slf4j
+@Component
+public class SummaryCache {
+
+    private record Entry(String summary, long createdAtMillis) {}
+
+    private final BoundedCache<String, Entry> cache;
+    private final long ttlMillis;
+    private final Path persistPath;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    public SummaryCache(
+            @Value("${rag.summary-cache.max-size:5000}") int maxSize,
+            @Value("${rag.summary-cache.ttl-millis:86400000}") long ttlMillis,
+            @Value("${rag.summary-cache.path:}") String path
+    ) {
+        this.cache = new BoundedCache<>(maxSize, Duration.ofMillis(ttlMillis), null, null);
+        this.ttlMillis = ttlMillis;
+        this.persistPath = (path == null || path.isBlank()) ? null : Path.of(path);
+    }
+
+    /** 캐시된 요약 조회 (없으면 null) */
+    public String get(String docId, String snippet) {
+        Entry e = cache.get(key(docId, snippet));
+        return e == null ? null : e.summary();
+    }
+
+    public void put(String docId, String snippet, String summary) {
+        cache.put(key(docId, snippet), new Entry(summary, System.currentTimeMillis()));
+        dirty.set(true);
+    }
+
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    static String key(String docId, String snippet) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(String.valueOf(docId).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(String.valueOf(snippet).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ===== 디스크 영속화 (한 줄 = key \t createdAtMillis \t base64(summary)) =====
+
+    @PostConstruct
+    void load() {
+        if (persistPath == null || !Files.exists(persistPath)) return;
+
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(persistPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length != 3) continue;
+                long createdAt = Long.parseLong(parts[1]);
+                if (now - createdAt >= ttlMillis) continue; // 이미 만료
+                String summary = new String(Base64.getDecoder().decode(parts[2]), StandardCharsets.UTF_8);
+                // 원래 생성 시각 기준으로 남은 TTL만 적용
+                cache.put(parts[0], new Entry(summary, createdAt), Duration.ofMillis(Math.max(0, now - createdAt)));
+                loaded++;
+            }
+            log.info("📥 Summary cache loaded: {} entries from {}", loaded, persistPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Summary cache load failed ({}): {}", persistPath, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rag.summary-cache.flush-interval-millis:60000}")
+    void flushIfDirty() {
+        if (persistPath != null && dirty.compareAndSet(true, false)) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    synchronized void flush() {
+        if (persistPath == null) return;
+
+        // 임시 파일에 쓰고 교체 → 부분 기록 방지
+        Path tmp = persistPath.resolveSibling(persistPath.getFileName() + ".tmp");
+        try {
+            Path parent = persistPath.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+
+            List<Map.Entry<String, Entry>> snapshot = cache.entries();
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (var e : snapshot) {
+                    writer.write(e.getKey());
+                    writer.write('\t');
+                    writer.write(Long.toString(e.getValue().createdAtMillis()));
+                    writer.write('\t');
+                    writer.write(Base64.getEncoder().encodeToString(
+                            e.getValue().summary().getBytes(StandardCharsets.UTF_8)));
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, persistPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("💾 Summary cache flushed: {} entries to {}", snapshot.size(), persistPath);
+        } catch (IOException e) {
+            log.warn("Summary cache flush failed ({}): {}", persistPath, e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package ia_x_ai_hackathon.chatty_potato.rag.service;
 
+import ia_x_ai_hackathon.chatty_potato.rag.exception.QueryTooLongException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
- * 단일 토큰 할당 전략 (입력 예산 고정)
- * 총 입력 예산: 2200 (system+rewrite+format+original+context)
- * 출력 최대: 512
+ * 토큰 할당 전략
+ *
+ * <p>- {@link #allocate()}: 고정 정책 (입력 2200 / 출력 512)
+ * - {@link #allocate(int, int, ModelProfile)}: 요청별 정책
+ *   실제 원 질의/재작성 토큰 수만 차감하고 남는 입력 예산은 모두 CONTEXT로 돌린다.
+ *   입력 예산은 모델 context window − 출력 한도를 넘지 않는다.
+ *   질의만으로 예산을 넘으면 {@link QueryTooLongException} (입력 + 출력이 window 를 넘는 할당은 만들지 않음)
+ * - {@link #fits(TokenAllocation, ModelProfile)}: 만들어진 할당이 다른 모델 한도에도 맞는지 (라우트 검증용)
  */
 @Component
 public class TokenAllocationStrategy {
@@ -22,6 +30,38 @@ public class TokenAllocationStrategy {
     // 출력 제한(고정)
     private static final int MAX_OUTPUT = 512;
 
+    /** 라우트(모델)별 한도: context window, 입력 예산, 출력 한도 */
+    public record ModelProfile(String name, int contextWindow, int inputBudget, int maxOutput) {
+        /** 로우 라우트(클라이언트가 프롬프트로 직접 생성) 프로파일 여부 */
+        public boolean isLow() {
+            return "low".equals(name);
+        }
+    }
+
+    private final ModelProfile low;
+    private final ModelProfile high;
+    private final boolean defaultLow;
+
+    /** 기본 한도 (테스트/단독 사용) */
+    public TokenAllocationStrategy() {
+        this(4096, 2200, 512, 128000, 8000, 1024, "low");
+    }
+
+    @Autowired
+    public TokenAllocationStrategy(
+            @Value("${rag.token.low.context-window:4096}") int lowContextWindow,
+            @Value("${rag.token.low.input-budget:2200}") int lowInputBudget,
+            @Value("${rag.token.low.max-output:512}") int lowMaxOutput,
+            @Value("${rag.token.high.context-window:128000}") int highContextWindow,
+            @Value("${rag.token.high.input-budget:8000}") int highInputBudget,
+            @Value("${rag.token.high.max-output:1024}") int highMaxOutput,
+            @Value("${rag.token.default-profile:low}") String defaultProfile
+    ) {
+        this.low = new ModelProfile("low", lowContextWindow, lowInputBudget, lowMaxOutput);
+        this.high = new ModelProfile("high", highContextWindow, highInputBudget, highMaxOutput);
+        this.defaultLow = !"high".equalsIgnoreCase(defaultProfile);
+    }
+
     /** 단일 정책 할당 */
     public TokenAllocation allocate() {
         return new TokenAllocation(
@@ -34,6 +74,50 @@ public class TokenAllocationStrategy {
         );
     }
 
+    /**
+     * 요청별 할당
+     *
+     * @param originalTokens 원 질의 실제 토큰 수
+     * @param rewriteTokens  재작성 질의 실제 토큰 수
+     * @param profile        대상 모델 한도
+     * @throws QueryTooLongException 고정 섹션 + 질의만으로 입력 예산 초과
+     */
+    public TokenAllocation allocate(int originalTokens, int rewriteTokens, ModelProfile profile) {
+        int maxOutput = maxOutput(profile);
+        int inputBudget = inputBudget(profile);
+
+        int original = Math.max(0, originalTokens);
+        int rewrite = Math.max(0, rewriteTokens);
+        int available = inputBudget - SYSTEM_PROMPT - OUTPUT_FORMAT;
+        if (original + rewrite > available) {
+            throw new QueryTooLongException(profile.name(), original + rewrite, Math.max(0, available));
+        }
+        int context = available - original - rewrite;
+
+        return new TokenAllocation(SYSTEM_PROMPT, rewrite, OUTPUT_FORMAT, original, context, maxOutput);
+    }
+
+    /** 할당된 입력이 해당 모델의 입력 예산(= window − 출력 한도 이내)에 들어가는지 */
+    public boolean fits(TokenAllocation allocation, ModelProfile profile) {
+        return allocation.totalInput() <= inputBudget(profile);
+    }
+
+    private static int maxOutput(ModelProfile profile) {
+        return Math.min(profile.maxOutput(), profile.contextWindow() / 2);
+    }
+
+    private static int inputBudget(ModelProfile profile) {
+        return Math.min(profile.inputBudget(), profile.contextWindow() - maxOutput(profile));
+    }
+
+    /**
+     * 라우트 힌트 → 모델 한도 (null 이면 rag.token.default-profile)
+     */
+    public ModelProfile profile(Boolean isLow) {
+        boolean useLow = isLow != null ? isLow : defaultLow;
+        return useLow ? low : high;
+    }
+
     public record TokenAllocation(
             int system, int rewrite, int format, int original, int context, int maxOutput
     ) {
@@ -1,49 +1,107 @@
 package ia_x_ai_hackathon.chatty_potato.rag.service;
 
-import org.springframework.stereotype.Component;
-
 /**
  * 토큰 수 추정 유틸리티
- * - 추정 방식: 띄어쓰기 기준 단어 수 × 2
- * - 보수적 추정으로 토큰 초과 방지
+ * - 기본(heuristic): 문자 종류별 단일 패스 추정, 할당 없음
+ *   · 한글/한자/가나: 글자당 1
+ *   · ASCII 단어: ⌈길이/5⌉, 그 외 문자(라틴 확장, 키릴 등): ⌈길이/2⌉
+ *   · 숫자: ⌈길이/3⌉ (BPE가 숫자를 3자리씩 끊는 것과 동일)
+ *   · 기호: 1개당 1, 줄바꿈 묶음: 1, 공백: 0
+ * - BPE 모드: {@link #install(Tokenizer)}로 실제 토크나이저를 끼우면 그쪽으로 위임
+ *   (rag.tokenizer.mode=bpe, {@link BpeTokenizer})
  */
 public final class TokenCounter {
 
-    private static final int MULTIPLIER = 2;
+    private static final int SPACE = 0;
+    private static final int NEWLINE = 1;
+    private static final int ASCII_WORD = 2;
+    private static final int WORD = 3;
+    private static final int DIGIT = 4;
+    private static final int WIDE = 5;
+    private static final int SYMBOL = 6;
+
+    private static volatile Tokenizer tokenizer;
 
     private TokenCounter() {
         throw new AssertionError("Utility class");
     }
 
     /**
-     * 텍스트의 근사 토큰 수 계산
+     * 토큰 계산기 교체 (null이면 heuristic 으로 복귀)
+     */
+    public static void install(Tokenizer delegate) {
+        tokenizer = delegate;
+    }
+
+    /**
+     * 텍스트의 토큰 수 계산
      *
      * @param text 입력 텍스트
-     * @return 추정 토큰 수 (단어 수 × 2)
+     * @return 토큰 수 (BPE 모드면 실제 값, 아니면 추정값)
      */
-    public static int count(String text) {
+    public static int count(CharSequence text) {
         if (text == null || text.isEmpty()) {
             return 0;
         }
-
-        String trimmed = text.trim();
-        if (trimmed.isEmpty()) {
-            return 0;
-        }
-
-        // 연속 공백을 하나로 처리하고 단어 개수 계산
-        String[] words = trimmed.split("\\s+");
-        return words.length * MULTIPLIER;
+        Tokenizer delegate = tokenizer;
+        return delegate != null ? delegate.count(text) : estimate(text);
     }
 
     /**
      * 여러 텍스트의 총 토큰 수 계산
      */
-    public static int countAll(String... texts) {
+    public static int countAll(CharSequence... texts) {
         int total = 0;
-        for (String text : texts) {
+        for (CharSequence text : texts) {
             total += count(text);
         }
         return total;
     }
-}
\ No newline at end of file
+
+    /**
+     * heuristic 추정 (단일 패스, 문자 종류가 바뀔 때마다 직전 구간을 합산)
+     */
+    static int estimate(CharSequence text) {
+        int tokens = 0;
+        int kind = SPACE;
+        int run = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            int k = classify(text.charAt(i));
+            if (k != kind) {
+                tokens += tokensOf(kind, run);
+                kind = k;
+                run = 0;
+            }
+            run++;
+        }
+        return tokens + tokensOf(kind, run);
+    }
+
+    private static int classify(char c) {
+        if (c == '\n' || c == '\r') return NEWLINE;
+        if (c == ' ' || c == '\t' || Character.isWhitespace(c)) return SPACE;
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) return ASCII_WORD;
+        if (c >= '0' && c <= '9') return DIGIT;
+        if ((c >= '\uAC00' && c <= '\uD7A3')     // 한글 음절
+                || (c >= '\u1100' && c <= '\u11FF') // 한글 자모
+                || (c >= '\u3130' && c <= '\u318F') // 호환 자모
+                || (c >= '\u3040' && c <= '\u30FF') // 히라가나/가타카나
+                || (c >= '\u4E00' && c <= '\u9FFF')) { // CJK 통합 한자
+            return WIDE;
+        }
+        if (Character.isLetter(c)) return WORD;
+        return SYMBOL;
+    }
+
+    private static int tokensOf(int kind, int run) {
+        if (run == 0) return 0;
+        return switch (kind) {
+            case SPACE -> 0;
+            case NEWLINE -> 1;
+            case ASCII_WORD -> (run + 4) / 5;
+            case WORD -> (run + 1) / 2;
+            case DIGIT -> (run + 2) / 3;
+            default -> run;          // WIDE, SYMBOL
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+/**
+ * 토큰 수 계산기 (TokenCounter 위임 대상)
+ * - 구현체는 thread-safe 해야 함 (여러 파이프라인 스레드에서 동시 호출)
+ */
+@FunctionalInterface
+public interface Tokenizer {
+
+    /**
+     * @param text 입력 텍스트 (null 아님)
+     * @return 토큰 수
+     */
+    int count(CharSequence text);
+}
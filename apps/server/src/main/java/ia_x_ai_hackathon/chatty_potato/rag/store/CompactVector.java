@@ -0,0 +1,119 @@
+package ia_x_ai_hackathon.chatty_potato.rag.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 읽기 전용 float 벡터
+ *
+ * <p>임베딩 벡터를 복사 없이 공유하기 위한 값 타입.
+ * - heap: 소유권을 넘겨받은 float[]를 그대로 사용 (읽기 시 복사 없음)
+ * - off-heap: direct FloatBuffer에 저장 → 캐시된 벡터가 GC 대상 힙을 차지하지 않음
+ * - {@link #asList()}: ES knn 빌더용 List&lt;Float&gt; 뷰 (List 재생성/배열 복사 없음, 인스턴스당 1회 생성)
+ */
+public final class CompactVector {
+
+	private static final CompactVector EMPTY = new CompactVector(new float[0], null);
+
+	private final float[] heap;        // heap 모드
+	private final FloatBuffer offHeap; // off-heap 모드 (read-only)
+	private final int dims;
+	private List<Float> listView;
+
+	private CompactVector(float[] heap, FloatBuffer offHeap) {
+		this.heap = heap;
+		this.offHeap = offHeap;
+		this.dims = heap != null ? heap.length : offHeap.capacity();
+	}
+
+	/** 소유권 이전: 호출자는 이후 배열을 수정하면 안 된다 (모델 응답 등 새로 만든 배열 전용) */
+	public static CompactVector wrap(float[] owned) {
+		return owned == null || owned.length == 0 ? EMPTY : new CompactVector(owned, null);
+	}
+
+	/** 방어적 복사 */
+	public static CompactVector copyOf(float[] values) {
+		return values == null || values.length == 0 ? EMPTY : new CompactVector(values.clone(), null);
+	}
+
+	/** 길이 dims의 영벡터 */
+	public static CompactVector zeros(int dims) {
+		return dims == 0 ? EMPTY : new CompactVector(new float[dims], null);
+	}
+
+	/** 현재 값을 off-heap(direct) 버퍼로 옮긴 사본 */
+	public CompactVector toOffHeap() {
+		if (offHeap != null || dims == 0) return this;
+		FloatBuffer buf = ByteBuffer.allocateDirect(dims * Float.BYTES)
+				.order(ByteOrder.nativeOrder())
+				.asFloatBuffer();
+		buf.put(heap).flip();
+		return new CompactVector(null, buf.asReadOnlyBuffer());
+	}
+
+	public boolean isOffHeap() {
+		return offHeap != null;
+	}
+
+	public int dims() {
+		return dims;
+	}
+
+	public float get(int i) {
+		return heap != null ? heap[i] : offHeap.get(i);
+	}
+
+	/** 복사본 (호환용, 핫패스에서는 get/asList 사용) */
+	public float[] toArray() {
+		if (heap != null) return heap.clone();
+		float[] out = new float[dims];
+		offHeap.get(0, out);
+		return out;
+	}
+
+	/** 코사인 유사도 (영벡터면 0) */
+	public double cosine(CompactVector other) {
+		if (other.dims != dims) throw new IllegalArgumentException("dims mismatch: " + dims + " vs " + other.dims);
+		double dot = 0, na = 0, nb = 0;
+		for (int i = 0; i < dims; i++) {
+			float a = get(i);
+			float b = other.get(i);
+			dot += a * b;
+			na += a * a;
+			nb += b * b;
+		}
+		return (na == 0 || nb == 0) ? 0.0 : dot / (Math.sqrt(na) * Math.sqrt(nb));
+	}
+
+	/** 읽기 전용 List 뷰 (지연 생성 후 재사용) */
+	public List<Float> asList() {
+		List<Float> view = listView;
+		if (view == null) {
+			view = new FloatListView(this);
+			listView = view;
+		}
+		return view;
+	}
+
+	private static final class FloatListView extends AbstractList<Float> implements RandomAccess {
+		private final CompactVector vector;
+
+		FloatListView(CompactVector vector) {
+			this.vector = vector;
+		}
+
+		@Override
+		public Float get(int index) {
+			return vector.get(index);
+		}
+
+		@Override
+		public int size() {
+			return vector.dims;
+		}
+	}
+}
@@ -1,18 +1,34 @@
 package ia_x_ai_hackathon.chatty_potato.rag.store;
 
 
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy.TokenAllocation;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * rewrite → route 사이의 태스크 슬롯 저장소
+ *
+ * <p>메모리 정책:
+ * - 최대 슬롯 수 초과 시 LRU 제거
+ * - 생성 후 ttl 경과 / 마지막 접근 후 idleTimeout 경과 시 만료
+ * - route 응답 직후 {@link #release(String, String)}로 즉시 해제
+ * - PENDING 상태로 제거되면 대기 중인 promptFuture를 실패로 완료
+ */
+@Slf4j
 @Component
 public class InMemoryStore {
 
@@ -27,7 +43,9 @@ public class InMemoryStore {
 
 		private String original;
 		private String rewritten;
-		private AugmentedContextDto augmentedContext;
+		private volatile AugmentedContextDto augmentedContext;
+		private String cachedAnswer; // 시맨틱 캐시 히트 시 저장된 답변 (프롬프트 빌드 생략)
+		private volatile EmbeddingResultDto queryEmbedding; // 캐시 조회에 쓴 재작성 질의 임베딩 (답변 캐시 저장에 재사용)
 
 		// 프롬프트 준비 완료/실패 신호
 		private CompletableFuture<Object> promptFuture;
@@ -36,17 +54,33 @@ public class InMemoryStore {
 		private volatile Status status;
 
 		private Instant createdAt;
+		private volatile String traceId; // rewrite 요청의 traceId (route 요청과 연결)
+		private volatile String tokenProfile;            // context 예산을 산정한 모델 프로파일 (low/high)
+		private volatile TokenAllocation tokenAllocation; // 프롬프트 입력 예산 (route 시 대상 모델과 대조)
 		private AtomicBoolean buildStarted; // 중복 방지
 	}
 
-	private final ConcurrentHashMap<String, Slot> map = new ConcurrentHashMap<>();
+	private final BoundedCache<String, Slot> slots;
+
+	public InMemoryStore(
+			@Value("${rag.store.max-size:10000}") int maxSize,
+			@Value("${rag.store.ttl-millis:600000}") long ttlMillis,
+			@Value("${rag.store.idle-timeout-millis:180000}") long idleTimeoutMillis
+	) {
+		this.slots = new BoundedCache<>(
+				maxSize,
+				Duration.ofMillis(ttlMillis),
+				Duration.ofMillis(idleTimeoutMillis),
+				this::onRemoval
+		);
+	}
 
 	private String key(String userId, String taskId) {
 		return userId + ":" + taskId;
 	}
 
 	/** rewrite 직후 초기화 (PENDING) */
-	public void init(String userId, String taskId, String original, String rewritten) {
+	public Slot init(String userId, String taskId, String original, String rewritten) {
 		Slot slot = Slot.builder()
 				.userId(userId)
 				.taskId(taskId)
@@ -57,25 +91,45 @@ public class InMemoryStore {
 				.createdAt(Instant.now())
 				.buildStarted(new AtomicBoolean(false))
 				.build();
-		map.put(key(userId, taskId), slot);
+		slots.put(key(userId, taskId), slot);
+		return slot;
+	}
+
+	/** 시맨틱 캐시 히트: 프롬프트 빌드 없이 바로 READY */
+	public Slot initCached(String userId, String taskId, String original, String rewritten,
+						   String answer, AugmentedContextDto augmentedContext) {
+		Slot slot = Slot.builder()
+				.userId(userId)
+				.taskId(taskId)
+				.original(original)
+				.rewritten(rewritten)
+				.augmentedContext(augmentedContext)
+				.cachedAnswer(answer)
+				.promptFuture(CompletableFuture.completedFuture(null))
+				.status(Status.READY)
+				.createdAt(Instant.now())
+				.buildStarted(new AtomicBoolean(true))
+				.build();
+		slots.put(key(userId, taskId), slot);
+		return slot;
 	}
 
 	/** 중복 시작 방지: 최초 1회만 true */
 	public boolean markBuildStarted(String userId, String taskId) {
-		Slot s = map.get(key(userId, taskId));
+		Slot s = slots.get(key(userId, taskId));
 		return s != null && s.getBuildStarted().compareAndSet(false, true);
 	}
 
 	public void completePrompt(String userId, String taskId, Object promptDto, AugmentedContextDto augmentedContext) {
-		Slot s = map.get(key(userId, taskId));
+		Slot s = slots.get(key(userId, taskId));
 		if (s == null) return;
+		s.setAugmentedContext(augmentedContext);
 		s.setStatus(Status.READY);
 		s.getPromptFuture().complete(promptDto);
-		s.setAugmentedContext(augmentedContext);
 	}
 
 	public void failPrompt(String userId, String taskId, String message) {
-		Slot s = map.get(key(userId, taskId));
+		Slot s = slots.get(key(userId, taskId));
 		if (s == null) return;
 		s.setError(message);
 		s.setStatus(Status.ERROR);
@@ -83,10 +137,41 @@ public class InMemoryStore {
 	}
 
 	public Optional<Slot> get(String userId, String taskId) {
-		return Optional.ofNullable(map.get(key(userId, taskId)));
+		return Optional.ofNullable(slots.get(key(userId, taskId)));
 	}
 
 	public Optional<String> getRewritten(String userId, String taskId) {
 		return get(userId, taskId).map(Slot::getRewritten);
 	}
-}
\ No newline at end of file
+
+	/** 소비 완료된 슬롯 해제 (payload 즉시 반환) */
+	public void release(String userId, String taskId) {
+		slots.remove(key(userId, taskId));
+	}
+
+	/** hit/miss/evict/expire 카운터 */
+	public BoundedCache.Stats stats() {
+		return slots.stats();
+	}
+
+	/** 접근이 없는 슬롯도 주기적으로 정리 */
+	@Scheduled(fixedDelayString = "${rag.store.purge-interval-millis:30000}")
+	public void purgeExpired() {
+		int purged = slots.purgeExpired();
+		if (purged > 0) {
+			log.debug("🧹 purged {} expired slots ({})", purged, slots.stats());
+		}
+	}
+
+	private void onRemoval(String key, Slot slot, BoundedCache.RemovalCause cause) {
+		if (slot.getStatus() == Status.PENDING) {
+			slot.setError("Task " + cause.name().toLowerCase() + " before prompt was ready");
+			slot.setStatus(Status.ERROR);
+			slot.getPromptFuture().completeExceptionally(new RuntimeException(slot.getError()));
+		}
+		slot.setAugmentedContext(null);
+		if (cause != BoundedCache.RemovalCause.EXPLICIT) {
+			log.debug("🗑️ slot {} removed ({})", key, cause);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package ia_x_ai_hackathon.chatty_potato.common.filter;
+
+import ia_x_ai_hackathon.chatty_potato.common.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JwtAuthenticationFilter 권한 매핑 테스트")
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String authorityFor(String token) throws Exception {
+        var request = new MockHttpServletRequest("POST", "/api/rag/documents");
+        request.setCookies(new Cookie("accessToken", token));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).findFirst().orElseThrow();
+    }
+
+    @Test
+    @DisplayName("게스트 토큰은 ROLE_GUEST, 관리자 토큰만 ROLE_ADMIN")
+    void maps_role_claim_to_authority() throws Exception {
+        assertThat(authorityFor(jwtUtil.createAccessToken("guest-1"))).isEqualTo("ROLE_GUEST");
+        assertThat(authorityFor(jwtUtil.createAccessToken("ops", JwtUtil.ROLE_ADMIN))).isEqualTo("ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("role claim 이 없거나 알 수 없는 값이면 GUEST")
+    void unknown_or_missing_role_is_guest() throws Exception {
+        var key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        String legacy = Jwts.builder().claim("userId", "old").expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key).compact();
+
+        assertThat(authorityFor(legacy)).isEqualTo("ROLE_GUEST");
+        assertThat(authorityFor(jwtUtil.createAccessToken("x", "SUPERUSER"))).isEqualTo("ROLE_GUEST");
+    }
+}
@@ -0,0 +1,119 @@
+package ia_x_ai_hackathon.chatty_potato.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BoundedCache 크기/TTL/유휴 만료 테스트")
+class BoundedCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> removals = new ArrayList<>();
+
+    private BoundedCache<String, String> cache(int maxSize, Duration ttl, Duration idle) {
+        return new BoundedCache<>(maxSize, ttl, idle,
+                (k, v, cause) -> removals.add(k + ":" + cause), clock::get);
+    }
+
+    @Test
+    @DisplayName("용량 초과 시 LRU 항목 제거")
+    void evicts_least_recently_used() {
+        var cache = cache(2, null, null);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");          // a 최근 접근
+        cache.put("c", "C");     // b 제거
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("c")).isEqualTo("C");
+        assertThat(removals).containsExactly("b:SIZE");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("용량 초과 삽입은 LRU 머리만 제거, 뒤쪽 만료 항목은 purgeExpired 몫")
+    void put_evicts_only_from_lru_head() {
+        var cache = cache(2, Duration.ofSeconds(10), null);
+        cache.put("a", "A");
+        clock.set(Duration.ofSeconds(5).toNanos());
+        cache.put("b", "B");
+        clock.set(Duration.ofSeconds(6).toNanos());
+        cache.get("a");                                 // LRU 순서: b, a
+        clock.set(Duration.ofSeconds(11).toNanos());   // a 만 TTL 만료
+        cache.put("c", "C");                            // 머리 b 만 제거 (만료된 a 는 순회하지 않음)
+
+        assertThat(removals).containsExactly("b:SIZE");
+        assertThat(cache.purgeExpired()).isEqualTo(1);
+        assertThat(removals).containsExactly("b:SIZE", "a:EXPIRED");
+
+        clock.set(Duration.ofSeconds(22).toNanos());   // c 만료
+        cache.put("d", "D");
+        cache.put("e", "E");                            // 머리 c 는 이미 만료 → EXPIRED 로 집계
+        assertThat(removals).endsWith("c:EXPIRED");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("TTL 경과 시 접근해도 만료")
+    void expires_after_ttl() {
+        var cache = cache(10, Duration.ofNanos(100), null);
+        cache.put("a", "A");
+        clock.addAndGet(50);
+        assertThat(cache.get("a")).isEqualTo("A");
+        clock.addAndGet(60);
+        assertThat(cache.get("a")).isNull();
+
+        assertThat(removals).containsExactly("a:EXPIRED");
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("age 지정 삽입은 남은 TTL만 유지")
+    void put_with_age_keeps_remaining_ttl() {
+        var cache = cache(10, Duration.ofNanos(100), null);
+        cache.put("a", "A", Duration.ofNanos(70));
+        clock.addAndGet(20);
+        assertThat(cache.get("a")).isEqualTo("A");
+        clock.addAndGet(10);
+        assertThat(cache.get("a")).isNull();
+
+        assertThat(removals).containsExactly("a:EXPIRED");
+    }
+
+    @Test
+    @DisplayName("유휴 시간은 접근 시 갱신, purgeExpired로 일괄 정리")
+    void idle_timeout_and_purge() {
+        var cache = cache(10, null, Duration.ofNanos(100));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        clock.addAndGet(80);
+        cache.get("a");
+        clock.addAndGet(30);
+
+        assertThat(cache.purgeExpired()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(removals).containsExactly("b:EXPIRED");
+    }
+
+    @Test
+    @DisplayName("hit/miss 카운터와 hitRatio")
+    void tracks_hit_ratio() {
+        var cache = cache(10, null, null);
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("a");
+        cache.get("x");
+
+        var stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.hitRatio()).isBetween(0.66, 0.67);
+    }
+}
@@ -0,0 +1,53 @@
+package ia_x_ai_hackathon.chatty_potato.config;
+
+import ia_x_ai_hackathon.chatty_potato.common.util.BoundedCache;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.PromptBuildStage;
+import ia_x_ai_hackathon.chatty_potato.rag.service.AdmissionController;
+import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SemanticAnswerCache;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SummarizationService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SummaryCache;
+import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MetricsConfig 캐시 지표 바인딩 테스트")
+class MetricsConfigTest {
+
+    @Test
+    @DisplayName("GC 이후에도 캐시 지표가 소유 빈에서 계속 읽힘 (NaN/정지 없음)")
+    void cache_meters_survive_gc() throws Exception {
+        var embeddingService = mock(EmbeddingService.class);
+        when(embeddingService.cacheStats()).thenReturn(new BoundedCache.Stats(3, 5, 2, 1, 1));
+        var summaryCache = new SummaryCache(10, 60_000L, "");
+        summaryCache.put("doc-1", "본문", "요약");
+        summaryCache.get("doc-1", "본문");
+        var inMemoryStore = new InMemoryStore(100, 60_000L, 60_000L);
+        inMemoryStore.init("u", "t", "q", "q");
+
+        var registry = new SimpleMeterRegistry();
+        new MetricsConfig().ragMeterBinder(embeddingService, summaryCache, mock(SemanticAnswerCache.class),
+                mock(SummarizationService.class), inMemoryStore, mock(PromptBuildStage.class),
+                new AdmissionController(true, 32, 1, 64, 0.5, 4, 3000L, 20000L)).bindTo(registry);
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(registry.get("rag.cache.size").tag("cache", "embedding").gauge().value()).isEqualTo(3.0);
+        assertThat(registry.get("rag.cache.requests").tags("cache", "embedding", "result", "hit")
+                .functionCounter().count()).isEqualTo(5.0);
+        assertThat(registry.get("rag.cache.evictions").tag("cache", "embedding")
+                .functionCounter().count()).isEqualTo(2.0);
+        assertThat(registry.get("rag.cache.size").tag("cache", "summary").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("rag.cache.requests").tags("cache", "summary", "result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("rag.cache.size").tag("cache", "task-slot").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,187 @@
+package ia_x_ai_hackathon.chatty_potato.rag.pipe;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.PromptAssemblyDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.PipelineOverloadedException;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.AugmentedChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.GeneratorChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RetrieverChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagMetrics;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagTracing;
+import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PromptBuildStage 비동기 빌드/back-pressure 테스트")
+class PromptBuildStageTest {
+
+    private RetrieverChainService retriever;
+    private AugmentedChainService augmented;
+    private GeneratorChainService generator;
+    private EmbeddingService embedding;
+    private InMemoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        retriever = mock(RetrieverChainService.class);
+        augmented = mock(AugmentedChainService.class);
+        generator = mock(GeneratorChainService.class);
+        embedding = mock(EmbeddingService.class);
+        store = new InMemoryStore(100, 60_000L, 60_000L);
+    }
+
+    private PromptBuildStage stage(Executor promptExecutor, int maxPending) {
+        return new PromptBuildStage(retriever, augmented, generator, embedding, store,
+                new RagMetrics(new SimpleMeterRegistry()), RagTracing.noop(), promptExecutor, Runnable::run, maxPending, false, 0.9, 50L);
+    }
+
+    private PromptBuildStage speculativeStage(Executor ragExecutor) {
+        return new PromptBuildStage(retriever, augmented, generator, embedding, store,
+                new RagMetrics(new SimpleMeterRegistry()), RagTracing.noop(), Runnable::run, ragExecutor, 10, true, 0.9, 50L);
+    }
+
+    @Test
+    @DisplayName("등록된 작업이 실행되면 슬롯 프롬프트가 READY")
+    void submit_builds_prompt() {
+        var docs = List.<RetrievedDocumentDto>of();
+        var ctx = AugmentedContextDto.empty();
+        var prompt = new PromptAssemblyDto("SYS", "USER", "RW", "", "FINAL");
+        when(retriever.retrieve("rw")).thenReturn(docs);
+        when(augmented.assemble(docs)).thenReturn(ctx);
+        when(generator.generatePrompt("orig", "rw", ctx)).thenReturn(prompt);
+
+        store.init("u", "t", "orig", "rw");
+        var stage = stage(Runnable::run, 10);
+        stage.submit("u", "t", "orig", "rw", null);
+
+        var slot = store.get("u", "t").orElseThrow();
+        assertThat(slot.getStatus()).isEqualTo(InMemoryStore.Status.READY);
+        assertThat(slot.getPromptFuture().join()).isSameAs(prompt);
+        assertThat(stage.stats().completed()).isEqualTo(1);
+        assertThat(stage.stats().pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("시맨틱 캐시 조회에 쓴 임베딩을 검색에 재사용 (재임베딩 없음)")
+    void reuses_precomputed_embedding() {
+        var docs = List.<RetrievedDocumentDto>of();
+        var ctx = AugmentedContextDto.empty();
+        var prompt = new PromptAssemblyDto("SYS", "USER", "RW", "", "FINAL");
+        var emb = new EmbeddingResultDto("emb-rw", new float[]{1f, 0f}, 2);
+        when(retriever.retrieve("rw", emb, RetrieverChainService.DEFAULT_TOP_K)).thenReturn(docs);
+        when(augmented.assemble(docs)).thenReturn(ctx);
+        when(generator.generatePrompt("orig", "rw", ctx)).thenReturn(prompt);
+
+        store.init("u", "t", "orig", "rw");
+        stage(Runnable::run, 10).submit("u", "t", "orig", "rw", null, null, emb);
+
+        assertThat(store.get("u", "t").orElseThrow().getPromptFuture().join()).isSameAs(prompt);
+        verify(embedding, never()).embed(anyString());
+        verify(retriever, never()).retrieve(anyString());
+    }
+
+    @Test
+    @DisplayName("추측 검색이 wait-millis 안에 끝나지 않으면 취소하고 재작성 질의로 검색")
+    void slow_speculation_falls_back_to_rewritten_retrieval() {
+        var docs = List.<RetrievedDocumentDto>of();
+        var ctx = AugmentedContextDto.empty();
+        var prompt = new PromptAssemblyDto("SYS", "USER", "RW", "", "FINAL");
+        var emb = new EmbeddingResultDto("emb-rw", new float[]{1f, 0f}, 2);
+        var neverDone = new CompletableFuture<PromptBuildStage.Speculation>();
+        when(embedding.embed("rw")).thenReturn(emb);
+        when(retriever.retrieve("rw", emb, RetrieverChainService.DEFAULT_TOP_K)).thenReturn(docs);
+        when(augmented.assemble(docs)).thenReturn(ctx);
+        when(generator.generatePrompt("orig", "rw", ctx)).thenReturn(prompt);
+
+        store.init("u", "t", "orig", "rw");
+        var stage = stage(Runnable::run, 10);
+        stage.submit("u", "t", "orig", "rw", neverDone);
+
+        assertThat(store.get("u", "t").orElseThrow().getPromptFuture().join()).isSameAs(prompt);
+        assertThat(neverDone).isCancelled();
+        assertThat(stage.speculationCount(PromptBuildStage.SpeculationOutcome.TIMEOUT)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("취소된 추측 검색은 시작 전이면 임베딩부터, 임베딩 중이면 kNN 을 생략")
+    void cancelled_speculation_skips_knn() {
+        List<Runnable> queued = new ArrayList<>();
+        var stage = speculativeStage(queued::add);
+
+        // 실행 전 취소 → 임베딩/kNN 모두 생략
+        var before = stage.startSpeculation("orig");
+        stage.cancelSpeculation(before);
+        queued.remove(0).run();
+        verifyNoInteractions(embedding, retriever);
+
+        // 임베딩 도중 취소 (캐시 히트 등) → kNN 생략
+        var during = new AtomicReference<CompletableFuture<PromptBuildStage.Speculation>>();
+        when(embedding.embed("orig")).thenAnswer(inv -> {
+            stage.cancelSpeculation(during.get());
+            return new EmbeddingResultDto("emb-orig", new float[]{1f, 0f}, 2);
+        });
+        during.set(stage.startSpeculation("orig"));
+        queued.remove(0).run();
+
+        assertThat(during.get()).isCancelled();
+        verifyNoInteractions(retriever);
+        assertThat(stage.speculationCount(PromptBuildStage.SpeculationOutcome.CANCELLED)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("재작성 임베딩이 충분히 가까우면 추측 검색 결과 재사용, 재사용률 집계")
+    void close_speculation_is_reused() {
+        var docs = List.of(RetrievedDocumentDto.builder().id("d1").title("t").snippet("s").score(0.9).build());
+        var ctx = AugmentedContextDto.empty();
+        var prompt = new PromptAssemblyDto("SYS", "USER", "RW", "", "FINAL");
+        var emb = new EmbeddingResultDto("emb", new float[]{1f, 0f}, 2);
+        when(augmented.assemble(docs)).thenReturn(ctx);
+        when(generator.generatePrompt("orig", "rw", ctx)).thenReturn(prompt);
+
+        store.init("u", "t", "orig", "rw");
+        var stage = stage(Runnable::run, 10);
+        stage.submit("u", "t", "orig", "rw",
+                CompletableFuture.completedFuture(new PromptBuildStage.Speculation(emb, docs)), null, emb);
+
+        assertThat(store.get("u", "t").orElseThrow().getPromptFuture().join()).isSameAs(prompt);
+        verifyNoInteractions(retriever);
+        assertThat(stage.speculationCount(PromptBuildStage.SpeculationOutcome.REUSED)).isEqualTo(1);
+        assertThat(stage.speculativeReuseRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("대기 작업 상한 초과 / 실행기 거부 시 PipelineOverloadedException")
+    void rejects_when_overloaded() {
+        Executor parked = task -> { };   // 실행되지 않고 대기 중인 상태 흉내
+        var full = stage(parked, 1);
+        full.submit("u", "t1", "q", "q", null);
+
+        assertThatThrownBy(() -> full.submit("u", "t2", "q", "q", null))
+                .isInstanceOf(PipelineOverloadedException.class);
+
+        var refusing = stage(task -> { throw new RejectedExecutionException("full"); }, 10);
+        assertThatThrownBy(() -> refusing.submit("u", "t3", "q", "q", null))
+                .isInstanceOf(PipelineOverloadedException.class);
+
+        assertThat(full.stats().rejected()).isEqualTo(1);
+        assertThat(refusing.stats().pending()).isZero();
+        verifyNoInteractions(retriever);
+    }
+}
@@ -0,0 +1,169 @@
+package ia_x_ai_hackathon.chatty_potato.rag.pipe;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto.Citation;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.PromptAssemblyDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.RewriteResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.GenerationFailedException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.PromptTimeoutException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.RouteMismatchException;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.GeneratorChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RewriteChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.AdmissionController;
+import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagMetrics;
+import ia_x_ai_hackathon.chatty_potato.rag.service.RagTracing;
+import ia_x_ai_hackathon.chatty_potato.rag.service.SemanticAnswerCache;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy;
+import ia_x_ai_hackathon.chatty_potato.rag.store.InMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RagPipelineService 라우트별 시맨틱 캐시 / 결과 조립 테스트")
+class RagPipelineServiceRouteTest {
+
+    private RewriteChainService rewrite;
+    private PromptBuildStage promptBuildStage;
+    private GeneratorChainService generator;
+    private SemanticAnswerCache cache;
+    private EmbeddingService embedding;
+    private InMemoryStore store;
+    private RagPipelineService service;
+
+    private final EmbeddingResultDto emb = new EmbeddingResultDto("emb-rw", new float[]{1f, 0f}, 2);
+
+    @BeforeEach
+    void setUp() {
+        rewrite = mock(RewriteChainService.class);
+        promptBuildStage = mock(PromptBuildStage.class);
+        generator = mock(GeneratorChainService.class);
+        cache = mock(SemanticAnswerCache.class);
+        embedding = mock(EmbeddingService.class);
+        store = new InMemoryStore(100, 60_000L, 60_000L);
+        service = new RagPipelineService(rewrite, promptBuildStage, generator, store, cache,
+                new AdmissionController(false, 32, 1, 64, 0.5, 4, 3000L, 20000L),
+                new RagMetrics(new SimpleMeterRegistry()), RagTracing.noop(), new TokenAllocationStrategy(),
+                embedding, Runnable::run);
+
+        when(rewrite.rewrite("orig")).thenReturn(RewriteResultDto.builder()
+                .originalQuery("orig").rewrittenQuery("rw").originalTokens(5).rewrittenTokens(5).build());
+    }
+
+    @Test
+    @DisplayName("로우 라우트는 캐시를 조회하지 않고 항상 프롬프트 빌드 (임베딩은 빌드 단계에서)")
+    void low_route_skips_semantic_cache() {
+        var res = service.rewriteQuery("u", "orig", true);
+
+        verifyNoInteractions(cache, embedding);
+        verify(promptBuildStage).submit(eq("u"), eq(res.taskId()), eq("orig"), eq("rw"), any(), any(), isNull());
+        assertThat(store.get("u", res.taskId()).orElseThrow().getCachedAnswer()).isNull();
+    }
+
+    @Test
+    @DisplayName("하이 라우트 미스 시 질의 임베딩 1회 → 캐시 조회와 검색이 같은 임베딩 사용")
+    void high_route_miss_reuses_lookup_embedding() {
+        when(embedding.embed("rw")).thenReturn(emb);
+        when(cache.lookup("u", "rw", emb)).thenReturn(Optional.empty());
+
+        var res = service.rewriteQuery("u", "orig", false);
+
+        verify(embedding, times(1)).embed(anyString());
+        verify(promptBuildStage).submit(eq("u"), eq(res.taskId()), eq("orig"), eq("rw"), any(), any(), same(emb));
+        assertThat(store.get("u", res.taskId()).orElseThrow().getQueryEmbedding()).isSameAs(emb);
+    }
+
+    @Test
+    @DisplayName("캐시 답변 슬롯은 하이 라우트로만 소비, 로우 라우트는 RouteMismatchException (슬롯 유지)")
+    void cached_slot_rejects_low_route() {
+        when(embedding.embed("rw")).thenReturn(emb);
+        when(cache.lookup("u", "rw", emb)).thenReturn(Optional.of(new SemanticAnswerCache.Hit(
+                "rw", "캐시 답변", List.of(new Citation("d1", "t", 0.9, "s")), 0.99)));
+
+        var res = service.rewriteQuery("u", "orig", false);
+        verify(promptBuildStage, never()).submit(any(), any(), any(), any(), any(), any(), any());
+
+        assertThatThrownBy(() -> service.produceAsync("u", res.taskId(), true, 1000L))
+                .isInstanceOf(RouteMismatchException.class);
+        assertThat(store.get("u", res.taskId())).isPresent();
+
+        var result = service.produceAsync("u", res.taskId(), false, 1000L).join();
+        assertThat(result.answer()).isEqualTo("캐시 답변");
+        assertThat(result.prompt()).isNull();
+        assertThat(result.citations()).extracting(Citation::id).containsExactly("d1");
+    }
+
+    @Test
+    @DisplayName("생성 중 슬롯이 제거돼도 인용은 생성 전에 확보한 값으로 반환/저장")
+    void citations_survive_slot_removal_during_generation() {
+        var citations = List.of(new Citation("d1", "t", 0.9, "s"));
+        var prompt = new PromptAssemblyDto("SYS", "USER", "rw", "", "FINAL");
+        store.init("u", "t1", "orig", "rw").setQueryEmbedding(emb);
+        store.completePrompt("u", "t1", prompt, new AugmentedContextDto("ctx", citations));
+        when(generator.generateAnswer(prompt)).thenAnswer(inv -> {
+            store.release("u", "t1");   // 만료/제거 흉내 → onRemoval 이 context 를 비움
+            return "답변";
+        });
+
+        var result = service.produceAsync("u", "t1", false, 1000L).join();
+
+        assertThat(result.answer()).isEqualTo("답변");
+        assertThat(result.citations()).isEqualTo(citations);
+        // 캐시 조회 때 계산한 임베딩으로 저장 (재임베딩 없음)
+        verify(cache).put(eq("u"), eq("rw"), eq("orig"), same(emb), eq("답변"), eq(citations));
+        verifyNoInteractions(embedding);
+    }
+
+    @Test
+    @DisplayName("생성 실패 시 슬롯 즉시 해제, 프롬프트 대기 타임아웃은 재시도를 위해 유지")
+    void slot_released_on_failure_but_kept_on_prompt_timeout() {
+        var prompt = new PromptAssemblyDto("SYS", "USER", "rw", "", "FINAL");
+        store.init("u", "t1", "orig", "rw");
+        store.completePrompt("u", "t1", prompt, new AugmentedContextDto("ctx", List.of()));
+        when(generator.generateAnswer(prompt)).thenThrow(new GenerationFailedException("llm down", null));
+
+        assertThatThrownBy(() -> service.produceAsync("u", "t1", false, 1000L).join())
+                .hasCauseInstanceOf(GenerationFailedException.class);
+        assertThat(store.get("u", "t1")).isEmpty();
+
+        store.init("u", "t2", "orig", "rw");   // 프롬프트 미완료
+        assertThatThrownBy(() -> service.produceAsync("u", "t2", false, 20L).join())
+                .hasCauseInstanceOf(PromptTimeoutException.class);
+        assertThat(store.get("u", "t2")).isPresent();
+    }
+
+    @Test
+    @DisplayName("rewrite 실패 / 캐시 히트 시 추측 검색 취소, 빌드로 넘기면 유지")
+    void speculation_cancelled_unless_handed_to_build() {
+        var spec = new CompletableFuture<PromptBuildStage.Speculation>();
+        when(promptBuildStage.startSpeculation("orig")).thenReturn(spec);
+        when(embedding.embed("rw")).thenReturn(emb);
+
+        when(cache.lookup("u", "rw", emb)).thenReturn(Optional.empty());
+        service.rewriteQuery("u", "orig", false);
+        verify(promptBuildStage, never()).cancelSpeculation(any());
+
+        when(cache.lookup("u", "rw", emb)).thenReturn(Optional.of(new SemanticAnswerCache.Hit("rw", "답", List.of(), 0.99)));
+        service.rewriteQuery("u", "orig", false);
+        verify(promptBuildStage, times(1)).cancelSpeculation(spec);
+
+        when(rewrite.rewrite("orig")).thenThrow(new IllegalStateException("llm down"));
+        assertThatThrownBy(() -> service.rewriteQuery("u", "orig", false)).isInstanceOf(IllegalStateException.class);
+        verify(promptBuildStage, times(2)).cancelSpeculation(spec);
+    }
+}
@@ -3,6 +3,7 @@ package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.AugmentedChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.ContextPacker;
 import ia_x_ai_hackathon.chatty_potato.rag.service.SummarizationService;
 import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy;
 import ia_x_ai_hackathon.chatty_potato.rag.service.TokenAllocationStrategy.TokenAllocation;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -29,6 +31,9 @@ class AugmentedChainServiceTest {
     @Mock
     private TokenAllocationStrategy tokenAllocationStrategy;
 
+    @Spy
+    private ContextPacker contextPacker = new ContextPacker("knapsack", 1.0);
+
     @InjectMocks
     private AugmentedChainService augmentedChainService;
 
@@ -117,6 +122,29 @@ class AugmentedChainServiceTest {
         assertThat(result).isNotNull();
     }
 
+    @Test
+    @DisplayName("✅ 문서별 Source 헤더 토큰까지 context 예산에 포함")
+    void budget_includes_source_headers() {
+        // 본문만 합치면 100 + 100 = 200 토큰으로 예산 안이지만 헤더 포함 시 초과
+        var docs = List.of(sizedDoc("1", 100), sizedDoc("2", 100));
+        var allocation = new TokenAllocation(200, 100, 200, 500, 200, 512);
+
+        AugmentedContextDto result = augmentedChainService.assemble(docs, allocation);
+
+        assertThat(result.citations()).hasSize(1);
+        assertThat(result.contextText()).contains("Source[1]:").doesNotContain("Source[2]:");
+    }
+
+    private RetrievedDocumentDto sizedDoc(String id, int tokens) {
+        return RetrievedDocumentDto.builder()
+                .id(id)
+                .title("Title " + id)
+                .snippet("snippet " + id)
+                .score(1.0 - Integer.parseInt(id) * 0.1)
+                .tokenCount(tokens)
+                .build();
+    }
+
     private RetrievedDocumentDto createDoc(String id, String snippet) {
         return RetrievedDocumentDto.builder()
                 .id(id)
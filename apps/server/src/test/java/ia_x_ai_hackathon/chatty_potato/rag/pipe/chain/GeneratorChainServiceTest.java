@@ -0,0 +1,83 @@
+package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.PromptAssemblyDto;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.GenerationFailedException;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClient.CallResponseSpec;
+import org.springframework.ai.chat.client.ChatClient.ChatClientRequestSpec;
+import org.springframework.ai.chat.client.ChatClient.StreamResponseSpec;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GeneratorChainService 테스트")
+class GeneratorChainServiceTest {
+
+    @Mock
+    private ChatClient chatClient;
+
+    @Mock
+    private ChatClientRequestSpec requestSpec;
+
+    @Mock
+    private CallResponseSpec callResponseSpec;
+
+    @Mock
+    private StreamResponseSpec streamResponseSpec;
+
+    private GeneratorChainService generatorChainService;
+
+    private final PromptAssemblyDto prompt = new PromptAssemblyDto("sys", "user", "rewrite", "ctx", "FINAL");
+
+    @BeforeEach
+    void setUp() {
+        generatorChainService = new GeneratorChainService(chatClient, DownstreamLimiter.unlimited());
+    }
+
+    @Test
+    @DisplayName("LLM 응답을 그대로 답변으로 반환")
+    void returns_llm_answer() {
+        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(callResponseSpec);
+        when(callResponseSpec.content()).thenReturn("ANSWER");
+
+        assertThat(generatorChainService.generateAnswer(prompt)).isEqualTo("ANSWER");
+    }
+
+    @Test
+    @DisplayName("LLM 호출 실패는 안내 문구 대신 GenerationFailedException")
+    void generation_failure_is_signalled() {
+        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenThrow(new RuntimeException("bedrock down"));
+
+        assertThatThrownBy(() -> generatorChainService.generateAnswer(prompt))
+                .isInstanceOf(GenerationFailedException.class)
+                .hasMessageContaining("bedrock down");
+    }
+
+    @Test
+    @DisplayName("스트리밍 실패는 안내 문구 델타 없이 에러 신호로 전달")
+    void stream_failure_is_signalled_as_error() {
+        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(requestSpec.stream()).thenReturn(streamResponseSpec);
+        when(streamResponseSpec.content()).thenReturn(
+                Flux.just("부분 ").concatWith(Flux.error(new RuntimeException("stream broken"))));
+
+        StepVerifier.create(generatorChainService.streamAnswer(prompt))
+                .expectNext("부분 ")
+                .expectError(GenerationFailedException.class)
+                .verify();
+    }
+}
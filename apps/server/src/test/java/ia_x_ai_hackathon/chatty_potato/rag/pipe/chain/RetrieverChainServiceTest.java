@@ -3,15 +3,20 @@ package ia_x_ai_hackathon.chatty_potato.rag.pipe.chain;
 import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
 import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RetrieverChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
 import ia_x_ai_hackathon.chatty_potato.rag.service.EmbeddingService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.TokenCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 import org.springframework.data.elasticsearch.core.query.Query;
 
@@ -28,7 +33,7 @@ class RetrieverChainServiceTest {
     void setUp() {
         embeddingService = mock(EmbeddingService.class);
         esOps = mock(ElasticsearchOperations.class, Answers.RETURNS_DEEP_STUBS);
-        service = new RetrieverChainService(embeddingService, esOps);
+        service = new RetrieverChainService(embeddingService, esOps, DownstreamLimiter.unlimited(), "knn", 60, "full", 400, 3);
     }
 
     @Test
@@ -111,6 +116,134 @@ class RetrieverChainServiceTest {
         assertThat(out).isEmpty();
     }
 
+    @Test
+    @DisplayName("임베딩을 직접 넘기면 임베딩 재호출 없이 검색")
+    void retrieve_with_precomputed_embedding_skips_embed() {
+        SearchHits<DocumentEntity> hits = mock(SearchHits.class);
+        when(esOps.search((Query) any(), eq(DocumentEntity.class))).thenReturn(hits);
+        var h1 = mockHit(doc("1", "T1", "C1", "u1"), 0.9f);
+        when(hits.stream()).thenReturn(Stream.of(h1));
+
+        var out = service.retrieve(new EmbeddingResultDto("id", new float[]{1f, 0f}, 2), 3);
+
+        assertThat(out).extracting(d -> d.id()).containsExactly("1");
+        verifyNoInteractions(embeddingService);
+    }
+
+    @Test
+    @DisplayName("색인 시 저장된 tokenCount가 있으면 그대로 전달")
+    void carries_precomputed_token_count() {
+        SearchHits<DocumentEntity> hits = mock(SearchHits.class);
+        when(esOps.search((Query) any(), eq(DocumentEntity.class))).thenReturn(hits);
+        var stored = DocumentEntity.builder().id("1").title("T1").content("C1").url("u1").tokenCount(123).build();
+        var computed = doc("2", "T2", "안녕하세요", "u2");
+        when(hits.stream()).thenReturn(Stream.of(mockHit(stored, 0.9f), mockHit(computed, 0.8f)));
+
+        var out = service.retrieve(new EmbeddingResultDto("id", new float[]{1f, 0f}, 2), 3);
+
+        assertThat(out).extracting(d -> d.tokenCount()).containsExactly(123, 5);
+    }
+
+    @Test
+    @DisplayName("하이브리드: kNN + BM25를 한 번의 msearch로 보내고 RRF로 융합")
+    void hybrid_fuses_knn_and_bm25_with_rrf() {
+        when(embeddingService.embed("서울 맛집")).thenReturn(new EmbeddingResultDto("id", new float[]{1f, 0f}, 2));
+
+        SearchHits<DocumentEntity> knnHits = mock(SearchHits.class);
+        when(knnHits.stream()).thenReturn(Stream.of(
+                mockHit(doc("1", "T1", "C1", "u1"), 0.9f),
+                mockHit(doc("2", "T2", "C2", "u2"), 0.4f)));   // 최소 관련도 미달 → 제외
+        SearchHits<DocumentEntity> bm25Hits = mock(SearchHits.class);
+        var bm25Only = mock(SearchHit.class);
+        when(bm25Only.getContent()).thenReturn(doc("3", "T3", "C3", "u3"));
+        var bm25Both = mock(SearchHit.class);
+        when(bm25Both.getContent()).thenReturn(doc("1", "T1", "C1", "u1"));
+        when(bm25Hits.stream()).thenReturn(Stream.of(bm25Only, bm25Both));
+        when(esOps.multiSearch(anyList(), eq(DocumentEntity.class))).thenReturn(List.of(knnHits, bm25Hits));
+
+        var out = service.retrieveHybrid("서울 맛집", 5);
+
+        // doc1: 1/61 + 1/62, doc3: 1/61 → 두 목록 모두에 있는 doc1이 1위
+        assertThat(out).extracting(d -> d.id()).containsExactly("1", "3");
+        assertThat(out.get(0).score()).isGreaterThan(out.get(1).score()).isLessThanOrEqualTo(1.0);
+        verify(esOps, times(1)).multiSearch(anyList(), eq(DocumentEntity.class));
+        verify(esOps, never()).search((Query) any(), eq(DocumentEntity.class));
+    }
+
+    @Test
+    @DisplayName("hybrid 모드면 retrieve(query, topK)도 하이브리드 경로 사용")
+    void hybrid_mode_routes_retrieve() {
+        var hybrid = new RetrieverChainService(embeddingService, esOps, DownstreamLimiter.unlimited(), "hybrid", 60, "full", 400, 3);
+        when(embeddingService.embed("q")).thenReturn(new EmbeddingResultDto("id", new float[]{0.1f}, 1));
+        SearchHits<DocumentEntity> empty = mock(SearchHits.class);
+        when(empty.stream()).thenAnswer(inv -> Stream.empty());
+        when(esOps.multiSearch(anyList(), eq(DocumentEntity.class))).thenReturn(List.of(empty, empty));
+
+        assertThat(hybrid.retrieve("q", 3)).isEmpty();
+        verify(esOps).multiSearch(anyList(), eq(DocumentEntity.class));
+    }
+
+    @Test
+    @DisplayName("일괄 검색: 임베딩 1회 + msearch 1회, 입력 순서 유지, 빈 질의는 빈 목록")
+    void retrieve_batch_uses_single_embed_and_msearch() {
+        when(embeddingService.embedBatch(List.of("a", "b"))).thenReturn(List.of(
+                new EmbeddingResultDto("a", new float[]{1f, 0f}, 2),
+                new EmbeddingResultDto("b", new float[]{0f, 1f}, 2)));
+        SearchHits<DocumentEntity> forA = mock(SearchHits.class);
+        when(forA.stream()).thenReturn(Stream.of(mockHit(doc("1", "T1", "C1", "u1"), 0.9f)));
+        SearchHits<DocumentEntity> forB = mock(SearchHits.class);
+        when(forB.stream()).thenReturn(Stream.of(mockHit(doc("2", "T2", "C2", "u2"), 0.8f)));
+        when(esOps.multiSearch(anyList(), eq(DocumentEntity.class))).thenReturn(List.of(forA, forB));
+
+        var out = service.retrieveBatch(Arrays.asList("a", " ", "b"), 3);
+
+        assertThat(out).hasSize(3);
+        assertThat(out.get(0)).extracting(d -> d.id()).containsExactly("1");
+        assertThat(out.get(1)).isEmpty();
+        assertThat(out.get(2)).extracting(d -> d.id()).containsExactly("2");
+        verify(embeddingService, times(1)).embedBatch(anyList());
+        verify(embeddingService, never()).embed(anyString());
+        verify(esOps, times(1)).multiSearch(anyList(), eq(DocumentEntity.class));
+    }
+
+    @Test
+    @DisplayName("kNN 요청은 _source에서 embedding 벡터 제외")
+    void knn_query_excludes_vector_from_source() {
+        SearchHits<DocumentEntity> hits = mock(SearchHits.class);
+        when(esOps.search((Query) any(), eq(DocumentEntity.class))).thenReturn(hits);
+        when(hits.stream()).thenReturn(Stream.empty());
+
+        service.retrieve(new EmbeddingResultDto("id", new float[]{1f, 0f}, 2), 3);
+
+        var captor = ArgumentCaptor.forClass(Query.class);
+        verify(esOps).search(captor.capture(), eq(DocumentEntity.class));
+        assertThat(captor.getValue().getSourceFilter().getExcludes()).containsExactly("embedding");
+        assertThat(captor.getValue().getHighlightQuery()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("passages 모드: content 대신 highlight 조각을 snippet으로, 토큰 수는 조각 기준")
+    void passages_projection_uses_highlight_fragments() {
+        var passages = new RetrieverChainService(embeddingService, esOps, DownstreamLimiter.unlimited(), "knn", 60, "passages", 400, 3);
+        SearchHits<DocumentEntity> hits = mock(SearchHits.class);
+        when(esOps.search((Query) any(), eq(DocumentEntity.class))).thenReturn(hits);
+        var stored = DocumentEntity.builder().id("1").title("T1").url("u1").tokenCount(5000).build();
+        var hit = mockHit(stored, 0.9f);
+        when(hit.getHighlightField("content")).thenReturn(List.of("첫 문단", "둘째 문단"));
+        when(hits.stream()).thenReturn(Stream.of(hit));
+
+        var out = passages.retrieve(new EmbeddingResultDto("id", new float[]{1f, 0f}, 2), 3);
+
+        assertThat(out).singleElement().satisfies(d -> {
+            assertThat(d.snippet()).isEqualTo("첫 문단 … 둘째 문단");
+            assertThat(d.tokenCount()).isEqualTo(TokenCounter.count("첫 문단 … 둘째 문단"));
+        });
+        var captor = ArgumentCaptor.forClass(Query.class);
+        verify(esOps).search(captor.capture(), eq(DocumentEntity.class));
+        assertThat(captor.getValue().getSourceFilter().getExcludes()).containsExactly("embedding", "content");
+        assertThat(captor.getValue().getHighlightQuery()).isPresent();
+    }
+
     // helpers
     private SearchHit<DocumentEntity> mockHit(DocumentEntity doc, float score) {
         @SuppressWarnings("unchecked")
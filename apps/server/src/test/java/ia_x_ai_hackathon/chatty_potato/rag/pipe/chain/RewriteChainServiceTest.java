@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 
 import ia_x_ai_hackathon.chatty_potato.rag.dto.RewriteResultDto;
 import ia_x_ai_hackathon.chatty_potato.rag.pipe.chain.RewriteChainService;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -36,7 +37,7 @@ class RewriteChainServiceTest {
 
     @BeforeEach
     void setUp() {
-        rewriteChainService = new RewriteChainService(chatClient);
+        rewriteChainService = new RewriteChainService(chatClient, DownstreamLimiter.unlimited());
     }
 
     @Test
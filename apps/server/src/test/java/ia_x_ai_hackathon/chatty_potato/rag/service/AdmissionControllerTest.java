@@ -0,0 +1,109 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.exception.AdmissionRejectedException;
+import ia_x_ai_hackathon.chatty_potato.rag.service.AdmissionController.Stage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AdmissionController 승인 제어 / AIMD 테스트")
+class AdmissionControllerTest {
+
+    private AdmissionController controller(int initialLimit, int perUserMax) {
+        return new AdmissionController(true, initialLimit, 1, 64, 0.5, perUserMax, 3_000L, 20_000L);
+    }
+
+    @Test
+    @DisplayName("사용자별 in-flight 상한 초과 시 429 예외, 반환 후 재승인")
+    void per_user_limit() {
+        var admission = controller(32, 2);
+        var p1 = admission.admit(Stage.REWRITE, "alice");
+        var p2 = admission.admit(Stage.ROUTE, "alice");
+
+        assertThatThrownBy(() -> admission.admit(Stage.REWRITE, "alice"))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).getRetryAfterSeconds()).isPositive());
+        admission.admit(Stage.REWRITE, "bob").close();   // 다른 사용자는 영향 없음
+
+        p1.close();
+        p1.close();   // 중복 close 무시
+        admission.admit(Stage.REWRITE, "alice").close();
+        p2.close();
+    }
+
+    @Test
+    @DisplayName("동시 승인/반환 경합에서도 사용자별 카운트가 어긋나지 않고 상한을 넘지 않음")
+    void per_user_count_is_consistent_under_contention() throws Exception {
+        var admission = controller(64, 2);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        try (var permit = admission.admit(Stage.REWRITE, "alice")) {
+                            maxObserved.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                            concurrent.decrementAndGet();
+                        } catch (AdmissionRejectedException ignored) {
+                            // 상한 초과는 정상
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(maxObserved.get()).isLessThanOrEqualTo(2);
+        assertThat(admission.userInFlight("alice")).isZero();
+        var p1 = admission.admit(Stage.REWRITE, "alice");
+        var p2 = admission.admit(Stage.REWRITE, "alice");
+        assertThatThrownBy(() -> admission.admit(Stage.REWRITE, "alice"))
+                .isInstanceOf(AdmissionRejectedException.class);
+        p1.close();
+        p2.close();
+    }
+
+    @Test
+    @DisplayName("단계 상한 초과 시 거절")
+    void stage_limit() {
+        var admission = controller(1, 10);
+        var held = admission.admit(Stage.ROUTE, "a");
+
+        assertThatThrownBy(() -> admission.admit(Stage.ROUTE, "b"))
+                .isInstanceOf(AdmissionRejectedException.class);
+        admission.admit(Stage.REWRITE, "b").close();      // 단계별로 독립
+
+        held.close();
+        assertThat(admission.snapshot(Stage.ROUTE).inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("AIMD: 목표 지연 초과 시 감소, 여유 있는 성공 시 증가")
+    void aimd_adjusts_limit() {
+        var limiter = new AdmissionController.StageLimiter(10, 2, 20, 0.5, 100);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onComplete(500);                          // 느림 → 10 × 0.5
+        assertThat(limiter.limit()).isEqualTo(5);
+
+        for (int i = 0; i < 3; i++) assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onComplete(10);                           // 3/5 사용 중 + 빠름 → +1
+        assertThat(limiter.limit()).isEqualTo(6);
+    }
+}
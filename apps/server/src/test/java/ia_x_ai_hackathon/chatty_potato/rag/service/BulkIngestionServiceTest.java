@@ -0,0 +1,201 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.BulkIngestStatusDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobAlreadyRunningException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkJobNotFoundException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.BulkPayloadTooLargeException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestionServiceTest {
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    private BulkIngestionService service(Executor executor, int embedBatchSize, int maxInFlight) {
+        return service(executor, embedBatchSize, maxInFlight, 1L << 20, 10_000);
+    }
+
+    private BulkIngestionService service(Executor executor, int embedBatchSize, int maxInFlight,
+                                         long maxBytes, int maxLineChars) {
+        return new BulkIngestionService(new DocumentChunker(300, 50), embeddingService, esOps,
+                DownstreamLimiter.unlimited(), new ObjectMapper(), executor, embedBatchSize, maxInFlight, 20, 60_000L,
+                maxBytes, maxLineChars);
+    }
+
+    @Test
+    @DisplayName("NDJSON 한 줄씩 읽어 배치 단위 embedDocuments/_bulk, 잘못된 줄은 건너뛰고 집계")
+    @SuppressWarnings("unchecked")
+    void ingest_streams_lines_into_bulk_batches() {
+        var service = service(Runnable::run, 2, 4);
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0)));
+        String ndjson = """
+                {"id":"a","title":"A","content":"첫 번째 문서입니다.","url":"https://example.com/a"}
+                {"id":"b","title":"B","content":"두 번째 문서입니다."}
+
+                {not json}
+                {"id":"c","title":"C","content":"   "}
+                {"id":"d","title":"D","content":"세 번째 문서입니다."}
+                """;
+
+        BulkIngestStatusDto status = service.ingest("job-1", stream(ndjson));
+
+        ArgumentCaptor<List<IndexQuery>> bulks = ArgumentCaptor.forClass(List.class);
+        verify(esOps, times(2)).bulkIndex(bulks.capture(), eq(DocumentEntity.class));
+        assertThat(bulks.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(bulks.getAllValues().get(0)).extracting(IndexQuery::getId).containsExactly("a#0", "b#0");
+        verify(embeddingService, times(2)).embedDocuments(anyList());
+
+        assertThat(status.state()).isEqualTo("COMPLETED");
+        assertThat(status.lines()).isEqualTo(5);
+        assertThat(status.documents()).isEqualTo(3);
+        assertThat(status.chunks()).isEqualTo(3);
+        assertThat(status.indexedChunks()).isEqualTo(3);
+        assertThat(status.failedLines()).isEqualTo(2);
+        assertThat(status.errors()).hasSize(2).anySatisfy(e -> assertThat(e).startsWith("line 4:"));
+        assertThat(service.status("job-1")).isEqualTo(status);
+    }
+
+    @Test
+    @DisplayName("_bulk 실패는 실패 청크로 집계하고 나머지 배치는 계속 색인")
+    void bulk_failure_is_counted_and_ingest_continues() {
+        var service = service(Runnable::run, 1, 4);
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0)));
+        when(esOps.bulkIndex(anyList(), eq(DocumentEntity.class)))
+                .thenThrow(new RuntimeException("es down"))
+                .thenReturn(List.of());
+
+        BulkIngestStatusDto status = service.ingest(null, stream("""
+                {"id":"a","content":"문서 하나."}
+                {"id":"b","content":"문서 둘."}
+                """));
+
+        assertThat(status.jobId()).isNotBlank();
+        assertThat(status.state()).isEqualTo("COMPLETED");
+        assertThat(status.indexedChunks()).isEqualTo(1);
+        assertThat(status.failedChunks()).isEqualTo(1);
+        assertThat(status.errors()).singleElement().asString().contains("es down");
+    }
+
+    @Test
+    @DisplayName("진행 중 _bulk 가 max-in-flight 에 도달하면 다음 배치 제출 전 대기, 진행 중 작업은 중복 실행 409 / 조회 유지")
+    void in_flight_bulks_are_bounded() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            var service = service(executor, 1, 1);
+            when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0)));
+            CountDownLatch firstBulkStarted = new CountDownLatch(1);
+            CountDownLatch releaseBulk = new CountDownLatch(1);
+            when(esOps.bulkIndex(anyList(), eq(DocumentEntity.class))).thenAnswer(inv -> {
+                firstBulkStarted.countDown();
+                releaseBulk.await(5, TimeUnit.SECONDS);
+                return List.of();
+            });
+
+            CompletableFuture<BulkIngestStatusDto> result = CompletableFuture.supplyAsync(() -> service.ingest("job-2", stream("""
+                    {"id":"a","content":"문서 하나."}
+                    {"id":"b","content":"문서 둘."}
+                    {"id":"c","content":"문서 셋."}
+                    """)));
+
+            assertThat(firstBulkStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            // 두 번째 배치는 임베딩까지 끝났지만 허가 대기 중
+            verify(esOps, times(1)).bulkIndex(anyList(), eq(DocumentEntity.class));
+            assertThat(service.status("job-2").state()).isEqualTo("RUNNING");
+
+            // 같은 jobId 재실행은 거절
+            assertThatThrownBy(() -> service.ingest("job-2", stream("{\"id\":\"z\",\"content\":\"문서.\"}")))
+                    .isInstanceOf(BulkJobAlreadyRunningException.class);
+            // 완료 작업이 보관 상한(100)을 넘겨도 진행 중 작업은 밀려나지 않음
+            for (int i = 0; i < 150; i++) {
+                service.ingest("other-" + i, stream("{\"id\":\"x\",\"content\":\" \"}"));
+            }
+            assertThat(service.status("job-2").state()).isEqualTo("RUNNING");
+
+            releaseBulk.countDown();
+            BulkIngestStatusDto status = result.get(5, TimeUnit.SECONDS);
+            assertThat(status.indexedChunks()).isEqualTo(3);
+            verify(esOps, times(3)).bulkIndex(anyList(), eq(DocumentEntity.class));
+            assertThat(service.status("job-2").state()).isEqualTo("COMPLETED");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("max-line-chars 를 넘는 줄은 실패 줄로 집계하고 다음 줄 계속")
+    void overlong_line_is_rejected_without_buffering() {
+        var service = service(Runnable::run, 64, 4, 1L << 20, 200);
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0)));
+        String huge = "{\"id\":\"big\",\"content\":\"" + "가".repeat(5_000) + "\"}";
+
+        BulkIngestStatusDto status = service.ingest("job-3", stream(huge + "\n{\"id\":\"a\",\"content\":\"문서 하나.\"}\n"));
+
+        assertThat(status.failedLines()).isEqualTo(1);
+        assertThat(status.errors()).singleElement().asString().startsWith("line 1:").contains("exceeds 200 chars");
+        assertThat(status.indexedChunks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("본문이 max-bytes 를 넘으면 BulkPayloadTooLargeException, 작업은 FAILED")
+    void oversized_body_is_rejected() {
+        var service = service(Runnable::run, 64, 4, 64, 10_000);
+        String body = "{\"id\":\"a\",\"content\":\"문서 하나.\"}\n".repeat(10);
+
+        assertThatThrownBy(() -> service.ingest("job-4", stream(body)))
+                .isInstanceOf(BulkPayloadTooLargeException.class);
+        assertThat(service.status("job-4").state()).isEqualTo("FAILED");
+    }
+
+    @Test
+    @DisplayName("없는 jobId 조회 시 BulkJobNotFoundException")
+    void unknown_job_is_not_found() {
+        var service = service(Runnable::run, 64, 4);
+
+        assertThatThrownBy(() -> service.status("missing"))
+                .isInstanceOf(BulkJobNotFoundException.class);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<EmbeddingResultDto> embeddings(List<String> texts) {
+        List<EmbeddingResultDto> out = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            out.add(new EmbeddingResultDto("emb-" + i, new float[]{1f, 0f}, 2));
+        }
+        return out;
+    }
+}
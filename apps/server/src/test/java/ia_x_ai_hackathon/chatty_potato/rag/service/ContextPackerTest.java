@@ -0,0 +1,87 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.RetrievedDocumentDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ContextPacker 문서 선택 테스트")
+class ContextPackerTest {
+
+    private final List<RetrievedDocumentDto> docs = List.of(
+            doc("1", 0.9, 600, "alpha"),
+            doc("2", 0.8, 700, "beta"),
+            doc("3", 0.7, 300, "gamma"),
+            doc("4", 0.6, 250, "delta")
+    );
+
+    @Test
+    @DisplayName("greedy: 처음 넘치는 문서에서 중단")
+    void greedy_stops_at_first_overflow() {
+        var packer = new ContextPacker("greedy", 1.0);
+
+        var out = packer.pack(docs, 1200, RetrievedDocumentDto::tokenCount);
+
+        assertThat(out).extracting(RetrievedDocumentDto::id).containsExactly("1");
+    }
+
+    @Test
+    @DisplayName("knapsack: 넘치는 문서를 건너뛰고 예산 내 관련도 합 최대화 (입력 순서 유지)")
+    void knapsack_maximizes_total_score() {
+        var packer = new ContextPacker("knapsack", 1.0);
+
+        var out = packer.pack(docs, 1200, RetrievedDocumentDto::tokenCount);
+
+        assertThat(out).extracting(RetrievedDocumentDto::id).containsExactly("1", "3", "4");
+        assertThat(out.stream().mapToInt(RetrievedDocumentDto::tokenCount).sum()).isLessThanOrEqualTo(1200);
+    }
+
+    @Test
+    @DisplayName("MMR: 중복 내용 문서보다 다른 내용의 문서를 선택")
+    void mmr_prefers_diverse_documents() {
+        var dup = List.of(
+                doc("1", 0.90, 400, "서울 날씨 맑음 기온 20도"),
+                doc("2", 0.89, 400, "서울 날씨 맑음 기온 20도"),
+                doc("3", 0.70, 400, "부산 비 소식 우산 챙기세요")
+        );
+
+        assertThat(new ContextPacker("knapsack", 1.0).pack(dup, 800, RetrievedDocumentDto::tokenCount))
+                .extracting(RetrievedDocumentDto::id).containsExactly("1", "2");
+        assertThat(new ContextPacker("knapsack", 0.5).pack(dup, 800, RetrievedDocumentDto::tokenCount))
+                .extracting(RetrievedDocumentDto::id).containsExactly("1", "3");
+    }
+
+    @Test
+    @DisplayName("예산이 커도 용량 칸을 묶어 계산하며 예산을 넘지 않음")
+    void large_budget_is_bucketed_and_respected() {
+        int[] weights = {5_000, 4_000, 3_000, 2_500};
+        double[] values = {0.9, 0.8, 0.7, 0.6};
+
+        boolean[] chosen = ContextPacker.knapsack(weights, values, 10_000);
+
+        int used = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (chosen[i]) used += weights[i];
+        }
+        assertThat(used).isLessThanOrEqualTo(10_000);
+        assertThat(chosen).containsExactly(false, true, true, true);   // 0.8 + 0.7 + 0.6
+    }
+
+    @Test
+    @DisplayName("빈 입력/0 예산 → 빈 결과")
+    void empty_input_or_budget() {
+        var packer = new ContextPacker("knapsack", 1.0);
+
+        assertThat(packer.pack(List.of(), 1200, RetrievedDocumentDto::tokenCount)).isEmpty();
+        assertThat(packer.pack(docs, 0, RetrievedDocumentDto::tokenCount)).isEmpty();
+    }
+
+    private static RetrievedDocumentDto doc(String id, double score, int tokens, String snippet) {
+        return RetrievedDocumentDto.builder()
+                .id(id).title("T" + id).snippet(snippet).url("u" + id).score(score).tokenCount(tokens)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("DocumentChunker 청크 분할 테스트")
+class DocumentChunkerTest {
+
+    @AfterEach
+    void resetTokenizer() {
+        TokenCounter.install(null);
+    }
+
+    @Test
+    @DisplayName("빈 텍스트는 청크 없음")
+    void blank_text_has_no_chunks() {
+        var chunker = new DocumentChunker(300, 50);
+
+        assertThat(chunker.split(null)).isEmpty();
+        assertThat(chunker.split("  \n ")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("짧은 문서는 청크 하나")
+    void short_document_is_single_chunk() {
+        var chunker = new DocumentChunker(300, 50);
+
+        var chunks = chunker.split("첫 문장입니다. 둘째 문장입니다.");
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).index()).isZero();
+        assertThat(chunks.get(0).text()).isEqualTo("첫 문장입니다. 둘째 문장입니다.");
+        assertThat(chunks.get(0).tokenCount()).isEqualTo(TokenCounter.count(chunks.get(0).text()));
+    }
+
+    @Test
+    @DisplayName("긴 문서는 토큰 상한 이하 청크로 나뉘고 인접 청크는 문장이 겹침")
+    void long_document_is_split_with_overlap() {
+        var chunker = new DocumentChunker(40, 10);
+        String text = IntStream.range(0, 30)
+                .mapToObj(i -> "Sentence number " + i + " talks about topic " + i + ".")
+                .collect(Collectors.joining(" "));
+
+        var chunks = chunker.split(text);
+
+        assertThat(chunks.size()).isGreaterThan(1);
+        assertThat(chunks).allSatisfy(c -> assertThat(c.tokenCount()).isLessThanOrEqualTo(40));
+        assertThat(chunks).extracting(DocumentChunker.Chunk::index)
+                .containsExactlyElementsOf(IntStream.range(0, chunks.size()).boxed().toList());
+        for (int i = 1; i < chunks.size(); i++) {
+            String prev = chunks.get(i - 1).text();
+            String firstSentence = chunks.get(i).text().split("(?<=\\.) ")[0];
+            assertThat(prev).endsWith(firstSentence);
+        }
+        // 모든 문장이 어느 청크에든 포함
+        String all = chunks.stream().map(DocumentChunker.Chunk::text).collect(Collectors.joining(" "));
+        assertThat(all).contains("Sentence number 0 ", "Sentence number 29 ");
+    }
+
+    @Test
+    @DisplayName("상한보다 긴 문장/단어도 상한 이하로 잘림")
+    void oversized_sentence_is_hard_split() {
+        var chunker = new DocumentChunker(20, 0);
+        String text = "가".repeat(50) + " " + "word ".repeat(40).trim();
+
+        List<DocumentChunker.Chunk> chunks = chunker.split(text);
+
+        assertThat(chunks).allSatisfy(c -> assertThat(c.tokenCount()).isLessThanOrEqualTo(20));
+        assertThat(chunks.stream().mapToInt(c -> c.text().length()).sum())
+                .isGreaterThanOrEqualTo(50 + 40 * 4);
+    }
+
+    @Test
+    @DisplayName("글자당 여러 토큰인 토크나이저(bpe)에서도 강제 분할 조각이 상한 이하")
+    void hard_split_recounts_pieces_with_multi_token_chars() {
+        TokenCounter.install(text -> (int) text.chars().filter(c -> !Character.isWhitespace(c)).count() * 3);   // 글자당 3 토큰
+        var chunker = new DocumentChunker(20, 0);
+        String word = "가".repeat(50);
+
+        List<DocumentChunker.Chunk> chunks = chunker.split(word);
+
+        assertThat(chunks).allSatisfy(c -> assertThat(c.tokenCount()).isLessThanOrEqualTo(20));
+        assertThat(chunks.stream().map(DocumentChunker.Chunk::text).collect(Collectors.joining()).replace(" ", ""))
+                .isEqualTo(word);
+    }
+}
@@ -0,0 +1,130 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestReqDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.DocumentIngestResDto;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.DocumentEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.EmbeddingUnavailableException;
+import ia_x_ai_hackathon.chatty_potato.rag.exception.InvalidDocumentException;
+import ia_x_ai_hackathon.chatty_potato.rag.repository.DocumentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentIngestionServiceTest {
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    private static final String CONTENT =
+            "하나 둘 셋 넷 다섯 여섯 일곱. 여덟 아홉 열 열하나 열둘 열셋. 가나다 라마바 사아자 차카타. 파하 가나 다라 마바 사아.";
+
+    private final DocumentChunker chunker = new DocumentChunker(300, 50);
+
+    @Test
+    @DisplayName("청크별로 parentId#index id, 부모 id, 토큰 수를 담아 저장")
+    @SuppressWarnings("unchecked")
+    void ingest_saves_chunks_with_parent_ids() {
+        var service = new DocumentIngestionService(chunker, embeddingService, documentRepository, 64);
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0), -1));
+
+        DocumentIngestResDto res = service.ingest(new DocumentIngestReqDto(
+                "doc-1", "제목", "첫 문장입니다. 둘째 문장입니다.", "https://example.com/doc-1"));
+
+        ArgumentCaptor<List<DocumentEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository).saveAll(saved.capture());
+        DocumentEntity chunk = saved.getValue().get(0);
+        assertThat(chunk.getId()).isEqualTo("doc-1#0");
+        assertThat(chunk.getParentId()).isEqualTo("doc-1");
+        assertThat(chunk.getChunkIndex()).isZero();
+        assertThat(chunk.getTitle()).isEqualTo("제목");
+        assertThat(chunk.getUrl()).isEqualTo("https://example.com/doc-1");
+        assertThat(chunk.getTokenCount()).isEqualTo(TokenCounter.count(chunk.getContent()));
+        assertThat(res).isEqualTo(new DocumentIngestResDto("doc-1", 1, chunk.getTokenCount()));
+        verify(documentRepository).deleteByParentIdAndChunkIndexGreaterThanEqual("doc-1", 1);
+    }
+
+    @Test
+    @DisplayName("embed-batch-size 단위로 embedDocuments 호출 후 한 번에 저장")
+    @SuppressWarnings("unchecked")
+    void ingest_batches_embeddings() {
+        var smallChunker = new DocumentChunker(10, 0);
+        var service = new DocumentIngestionService(smallChunker, embeddingService, documentRepository, 2);
+        int expectedChunks = smallChunker.split(CONTENT).size();
+        List<Integer> calls = new ArrayList<>();
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> {
+            List<String> texts = inv.getArgument(0);
+            calls.add(texts.size());
+            return embeddings(texts, -1);
+        });
+
+        DocumentIngestResDto res = service.ingest(new DocumentIngestReqDto("doc-2", "t", CONTENT, null));
+
+        assertThat(expectedChunks).isGreaterThan(2);
+        assertThat(calls).allSatisfy(n -> assertThat(n).isLessThanOrEqualTo(2));
+        assertThat(calls.stream().mapToInt(Integer::intValue).sum()).isEqualTo(expectedChunks);
+        assertThat(res.chunks()).isEqualTo(expectedChunks);
+
+        ArgumentCaptor<List<DocumentEntity>> saved = ArgumentCaptor.forClass(List.class);
+        var order = inOrder(documentRepository);
+        order.verify(documentRepository).saveAll(saved.capture());
+        order.verify(documentRepository).deleteByParentIdAndChunkIndexGreaterThanEqual("doc-2", expectedChunks);
+        assertThat(saved.getValue()).hasSize(expectedChunks);
+    }
+
+    @Test
+    @DisplayName("청크 하나라도 임베딩 실패(제로 벡터)면 EmbeddingUnavailableException, 저장/삭제 없음")
+    void embedding_failure_aborts_without_touching_index() {
+        var service = new DocumentIngestionService(new DocumentChunker(10, 0), embeddingService, documentRepository, 2);
+        List<Integer> calls = new ArrayList<>();
+        when(embeddingService.embedDocuments(anyList())).thenAnswer(inv -> {
+            List<String> texts = inv.getArgument(0);
+            calls.add(texts.size());
+            // 첫 배치의 두 번째 청크만 실패
+            return embeddings(texts, calls.size() == 1 ? 1 : -1);
+        });
+
+        assertThatThrownBy(() -> service.ingest(new DocumentIngestReqDto("doc-2", "t", CONTENT, null)))
+                .isInstanceOf(EmbeddingUnavailableException.class)
+                .satisfies(e -> {
+                    var ex = (EmbeddingUnavailableException) e;
+                    assertThat(ex.getDocumentId()).isEqualTo("doc-2");
+                    assertThat(ex.getFailedChunks()).isEqualTo(1);
+                });
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    @DisplayName("본문이 비어 있으면 InvalidDocumentException")
+    void blank_content_is_rejected() {
+        var service = new DocumentIngestionService(chunker, embeddingService, documentRepository, 64);
+
+        assertThatThrownBy(() -> service.ingest(new DocumentIngestReqDto("doc-3", "t", " ", null)))
+                .isInstanceOf(InvalidDocumentException.class);
+        verifyNoInteractions(embeddingService, documentRepository);
+    }
+
+    private static List<EmbeddingResultDto> embeddings(List<String> texts, int failAt) {
+        List<EmbeddingResultDto> out = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String id = i == failAt ? EmbeddingResultDto.ZERO_ID : "emb-" + i;
+            out.add(new EmbeddingResultDto(id, new float[]{1f, 0f}, 2));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,41 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.exception.DownstreamBusyException;
+import ia_x_ai_hackathon.chatty_potato.rag.service.DownstreamLimiter.Downstream;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("DownstreamLimiter 다운스트림별 동시성 제한 테스트")
+class DownstreamLimiterTest {
+
+    @Test
+    @DisplayName("허용량 초과 시 대기 후 DownstreamBusyException, 다른 다운스트림은 영향 없음")
+    void saturated_downstream_rejects_after_timeout() {
+        var limiter = new DownstreamLimiter(ObservationRegistry.NOOP, 1, 1, 1, 10);
+
+        try (var held = limiter.acquire(Downstream.LLM)) {
+            assertThatThrownBy(() -> limiter.call(Downstream.LLM, "generate", () -> "x"))
+                    .isInstanceOf(DownstreamBusyException.class)
+                    .hasMessageContaining("LLM");
+            assertThat(limiter.call(Downstream.ES, "knn", () -> "es")).isEqualTo("es");
+        }
+
+        assertThat(limiter.call(Downstream.LLM, "generate", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("작업이 예외를 던져도 허가는 반환")
+    void permit_released_on_failure() {
+        var limiter = new DownstreamLimiter(ObservationRegistry.NOOP, 1, 1, 1, 10);
+
+        assertThatThrownBy(() -> limiter.call(Downstream.EMBEDDING, "embed-batch", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(limiter.available(Downstream.EMBEDDING)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,53 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("EmbeddingCoalescer 배치 묶음 테스트")
+class EmbeddingCoalescerTest {
+
+    @Test
+    @DisplayName("윈도우 내 동시 요청은 한 번의 배치 호출로 묶이고, 중복 텍스트는 한 번만 전송")
+    void coalesces_concurrent_requests() throws Exception {
+        List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+        try (var coalescer = new EmbeddingCoalescer(texts -> {
+            calls.add(texts);
+            return texts.stream().map(t -> new float[]{t.length()}).toList();
+        }, 50, 16, 2)) {
+
+            CompletableFuture<float[]> a = coalescer.submit("a");
+            CompletableFuture<float[]> bb = coalescer.submit("bb");
+            CompletableFuture<float[]> a2 = coalescer.submit("a");
+
+            assertThat(a.get(1, TimeUnit.SECONDS)).containsExactly(1f);
+            assertThat(bb.get(1, TimeUnit.SECONDS)).containsExactly(2f);
+            assertThat(a2.get(1, TimeUnit.SECONDS)).containsExactly(1f);
+
+            assertThat(calls).hasSize(1);
+            assertThat(calls.get(0)).containsExactly("a", "bb");
+        }
+    }
+
+    @Test
+    @DisplayName("배치 호출 실패 시 모든 호출자에게 예외 전달")
+    void propagates_batch_failure() {
+        try (var coalescer = new EmbeddingCoalescer(texts -> {
+            throw new RuntimeException("provider down");
+        }, 1, 16, 1)) {
+
+            CompletableFuture<float[]> f = coalescer.submit("x");
+
+            assertThatThrownBy(() -> f.get(1, TimeUnit.SECONDS))
+                    .hasRootCauseMessage("provider down");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmbeddingService 캐시/정규화/배치 테스트")
+class EmbeddingServiceTest {
+
+    private EmbeddingModel model;
+    private EmbeddingService service;
+
+    @BeforeEach
+    void setUp() {
+        model = mock(EmbeddingModel.class);
+        // 코얼레서 비활성 → 모델 직접 호출
+        service = new EmbeddingService(model, mock(VectorStoreService.class), DownstreamLimiter.unlimited(),
+                64L * 1024 * 1024, 3_600_000L, false, false, 5, 64, 4, 10_000L);
+    }
+
+    // 입력 i번째 → {i + 1} 벡터
+    private void stubModel() {
+        when(model.call(any(EmbeddingRequest.class))).thenAnswer(inv -> {
+            EmbeddingRequest request = inv.getArgument(0);
+            List<Embedding> out = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                out.add(new Embedding(new float[]{i + 1f}, i));
+            }
+            return new EmbeddingResponse(out);
+        });
+    }
+
+    private List<List<String>> modelInputs(int calls) {
+        var captor = ArgumentCaptor.forClass(EmbeddingRequest.class);
+        verify(model, times(calls)).call(captor.capture());
+        return captor.getAllValues().stream().map(EmbeddingRequest::getInstructions).toList();
+    }
+
+    @Test
+    @DisplayName("빈 문자열 임베딩 → zero vector(1024) 반환")
+    void embed_blank_returns_zero_vector() {
+        var result = service.embed("   ");
+
+        assertThat(result.id()).isEqualTo("zero");
+        assertThat(result.vector()).hasSize(1024); // EMBEDDING_DIMENSIONS
+        assertThat(result.dims()).isEqualTo(1024);
+        verifyNoInteractions(model);
+    }
+
+    @Test
+    @DisplayName("같은 질의 재요청 → 캐시 히트 (모델 1회 호출)")
+    void embed_cache_hit() {
+        stubModel();
+
+        var first = service.embed("hello world");
+        var second = service.embed("hello world");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.vector()).containsExactly(1f);
+        assertThat(first.id()).startsWith("emb-");
+        verify(model, times(1)).call(any(EmbeddingRequest.class));
+        assertThat(service.cacheStats().hits()).isEqualTo(1);
+        assertThat(service.cacheStats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("공백/NFKC 차이는 같은 키, 모델에는 캐시 키와 같은 정규화 텍스트 전달")
+    void embed_normalizes_key_and_model_input() {
+        stubModel();
+
+        service.embed("  Ｈｅｌｌｏ \t  World ");
+        service.embed("Hello World");
+
+        assertThat(modelInputs(1)).containsExactly(List.of("Hello World"));
+    }
+
+    @Test
+    @DisplayName("대소문자가 다르면 별도 키 → 임베딩한 텍스트와 캐시 키가 항상 일치")
+    void embed_preserves_case() {
+        stubModel();
+
+        service.embed("Apple");
+        service.embed("apple");
+
+        assertThat(modelInputs(2)).containsExactly(List.of("Apple"), List.of("apple"));
+    }
+
+    @Test
+    @DisplayName("배치 임베딩 → 캐시 히트 제외, 미스만 한 번에 요청 (순서 보존)")
+    void embed_batch_uses_cache_for_hits() {
+        stubModel();
+        service.embed("A");
+
+        var out = service.embedBatch(List.of("B", "A", "B"));
+
+        assertThat(out).hasSize(3);
+        assertThat(out.get(0).vector()).containsExactly(1f);
+        assertThat(out.get(1).vector()).containsExactly(1f);   // 캐시된 A
+        assertThat(out.get(2)).isSameAs(out.get(0));
+        assertThat(modelInputs(2)).containsExactly(List.of("A"), List.of("B"));
+    }
+
+    @Test
+    @DisplayName("색인용 embedDocuments → 질의 캐시를 채우지 않음")
+    void embed_documents_bypass_cache() {
+        stubModel();
+
+        service.embedDocuments(List.of("doc"));
+        service.embed("doc");
+
+        verify(model, times(2)).call(any(EmbeddingRequest.class));
+        assertThat(service.cacheStats().size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("배치 임베딩 실패 시 → 개별 임베딩 fallback")
+    void embed_batch_fallback_to_individual() {
+        when(model.call(any(EmbeddingRequest.class)))
+                .thenThrow(new RuntimeException("boom"))
+                .thenReturn(new EmbeddingResponse(List.of(new Embedding(new float[]{7f}, 0))))
+                .thenReturn(new EmbeddingResponse(List.of(new Embedding(new float[]{9f, 9f}, 0))));
+
+        var out = service.embedBatch(List.of("X", "Y"));
+
+        assertThat(out).hasSize(2);
+        assertThat(out.get(0).vector()).containsExactly(7f);
+        assertThat(out.get(1).vector()).containsExactly(9f, 9f);
+        // 총 3번 call: (배치 1) + (개별 2)
+        verify(model, times(3)).call(any(EmbeddingRequest.class));
+    }
+}
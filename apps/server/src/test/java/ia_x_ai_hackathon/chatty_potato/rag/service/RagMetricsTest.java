@@ -0,0 +1,30 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("RagMetrics 단계 타이머 테스트")
+class RagMetricsTest {
+
+    @Test
+    @DisplayName("단계별 타이머는 stage 태그로 분리되고, 예외가 나도 기록")
+    void records_per_stage() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = new RagMetrics(registry);
+
+        assertThat(metrics.time("rewrite", () -> "ok")).isEqualTo("ok");
+        metrics.time("rewrite", () -> "again");
+        assertThatThrownBy(() -> metrics.time("generate", () -> { throw new IllegalStateException(); }))
+                .isInstanceOf(IllegalStateException.class);
+        metrics.recordQueueWait("rag-prompt", 1_000_000L);
+
+        assertThat(registry.get(RagMetrics.STAGE_LATENCY).tag("stage", "rewrite").timer().count()).isEqualTo(2);
+        assertThat(registry.get(RagMetrics.STAGE_LATENCY).tag("stage", "generate").timer().count()).isEqualTo(1);
+        assertThat(registry.get(RagMetrics.EXECUTOR_QUEUE_WAIT).tag("executor", "rag-prompt").timer().count())
+                .isEqualTo(1);
+    }
+}
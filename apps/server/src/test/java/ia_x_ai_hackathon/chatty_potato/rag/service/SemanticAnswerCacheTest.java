@@ -0,0 +1,135 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import ia_x_ai_hackathon.chatty_potato.rag.dto.AugmentedContextDto.Citation;
+import ia_x_ai_hackathon.chatty_potato.rag.dto.EmbeddingResultDto;
+import ia_x_ai_hackathon.chatty_potato.rag.entity.SemanticCacheEntity;
+import ia_x_ai_hackathon.chatty_potato.rag.repository.SemanticCacheRepository;
+import ia_x_ai_hackathon.chatty_potato.rag.store.CompactVector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SemanticAnswerCache 조회/저장 테스트")
+class SemanticAnswerCacheTest {
+
+    @Mock private SemanticCacheRepository repository;
+    @Mock private ElasticsearchOperations esOps;
+
+    private final EmbeddingResultDto embedding = new EmbeddingResultDto("emb-1", new float[]{0.6f, 0.8f}, 2);
+
+    private SemanticAnswerCache cache(boolean enabled) {
+        return new SemanticAnswerCache(repository, esOps, enabled, 0.95, 60_000L);
+    }
+
+    @Test
+    @DisplayName("임계값 이상 문서가 있으면 저장된 답변과 인용 반환 (전달된 임베딩으로 전용 인덱스 kNN)")
+    @SuppressWarnings("unchecked")
+    void lookup_hit_returns_answer_and_citations() {
+        var cache = cache(true);
+        var entry = SemanticCacheEntity.builder()
+                .userId("u1")
+                .query("서울 날씨")
+                .answer("맑음")
+                .citations(SemanticAnswerCache.fromCitations(
+                        List.of(new Citation("d1", "기상청", 0.9, "맑음"))))
+                .build();
+        SearchHit<SemanticCacheEntity> hit = mock(SearchHit.class);
+        when(hit.getContent()).thenReturn(entry);
+        when(hit.getScore()).thenReturn(0.985f);   // cos = 0.97
+        SearchHits<SemanticCacheEntity> hits = mock(SearchHits.class);
+        when(hits.hasSearchHits()).thenReturn(true);
+        when(hits.getSearchHit(0)).thenReturn(hit);
+        when(esOps.search(any(Query.class), eq(SemanticCacheEntity.class))).thenReturn(hits);
+
+        var result = cache.lookup("u1", "서울 날씨 알려줘", embedding);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().matchedQuery()).isEqualTo("서울 날씨");
+        assertThat(result.get().answer()).isEqualTo("맑음");
+        assertThat(result.get().similarity()).isCloseTo(0.97, org.assertj.core.data.Offset.offset(1e-3));
+        assertThat(result.get().citations()).extracting(Citation::id).containsExactly("d1");
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(esOps).search(queryCaptor.capture(), eq(SemanticCacheEntity.class));
+        var knn = ((NativeQuery) queryCaptor.getValue()).getQuery().knn();
+        assertThat(knn.queryVector()).containsExactly(0.6f, 0.8f);
+        assertThat(knn.similarity()).isEqualTo(0.95f);
+        assertThat(knn.k()).isEqualTo(1);
+        assertThat(knn.filter()).singleElement()
+                .satisfies(f -> assertThat(f.queryString().query()).contains("userId:\"u1\""));
+    }
+
+    @Test
+    @DisplayName("비활성화 또는 제로 벡터면 조회 없이 미스")
+    void disabled_or_zero_vector_skips_lookup() {
+        assertThat(cache(false).lookup("u1", "질문", embedding)).isEmpty();
+        var zero = new EmbeddingResultDto("zero", CompactVector.zeros(2), 2);
+        assertThat(cache(true).lookup("u1", "질문", zero)).isEmpty();
+        verifyNoInteractions(repository, esOps);
+    }
+
+    @Test
+    @DisplayName("사용자 없이 조회하면 다른 사용자 답변이 섞이지 않도록 조회 생략")
+    void missing_user_skips_lookup() {
+        assertThat(cache(true).lookup(null, "질문", embedding)).isEmpty();
+        verifyNoInteractions(esOps);
+    }
+
+    @Test
+    @DisplayName("저장은 전달받은 임베딩 그대로 전용 인덱스에 색인 (재임베딩 없음)")
+    void put_indexes_with_given_embedding() {
+        var cache = cache(true);
+
+        cache.put("u1", "서울 날씨", "서울 날씨 어때?", embedding, "맑음",
+                List.of(new Citation("d1", "기상청", 0.9, "맑음")));
+
+        var captor = ArgumentCaptor.forClass(SemanticCacheEntity.class);
+        verify(repository).save(captor.capture());
+        var saved = captor.getValue();
+        assertThat(saved.getUserId()).isEqualTo("u1");
+        assertThat(saved.getQuery()).isEqualTo("서울 날씨");
+        assertThat(saved.getAnswer()).isEqualTo("맑음");
+        assertThat(saved.getEmbedding()).containsExactly(0.6f, 0.8f);
+        assertThat(SemanticAnswerCache.toCitations(saved.getCitations())).extracting(Citation::id).containsExactly("d1");
+        assertThat(saved.getCreatedAtEpoch()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("임베딩이 없거나 제로 벡터면 저장 생략")
+    void put_without_embedding_is_skipped() {
+        var cache = cache(true);
+
+        cache.put("u1", "질문", "질문", null, "답변", List.of());
+        cache.put("u1", "질문", "질문", new EmbeddingResultDto("zero", CompactVector.zeros(2), 2), "답변", List.of());
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("ES 오류는 미스/무시로 처리")
+    void store_failures_do_not_propagate() {
+        var cache = cache(true);
+        when(esOps.search(any(Query.class), eq(SemanticCacheEntity.class)))
+                .thenThrow(new RuntimeException("es down"));
+        when(repository.save(any())).thenThrow(new RuntimeException("es down"));
+
+        assertThat(cache.lookup("u1", "질문", embedding)).isEmpty();
+        cache.put("u1", "질문", "질문", embedding, "답변", List.of());
+    }
+}
@@ -11,9 +11,16 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.CallResponseSpec;
 import org.springframework.ai.chat.client.ChatClient.ChatClientRequestSpec;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 
 @ExtendWith(MockitoExtension.class)
 class SummarizationServiceTest {
@@ -31,7 +38,7 @@ class SummarizationServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new SummarizationService(chatClient);
+        service = new SummarizationService(chatClient, Runnable::run, 5_000L, new SummaryCache(100, 60_000L, ""), DownstreamLimiter.unlimited());
         // ✅ setUp에서 모킹 제거 - 각 테스트에서 필요할 때만 설정
     }
 
@@ -67,6 +74,10 @@ class SummarizationServiceTest {
         assertThat(result.url()).isEqualTo("https://example.com/doc-1");
         assertThat(result.score()).isEqualTo(0.95);
 
+        // snippet이 바뀌었으므로 토큰 수도 재계산됨
+        assertThat(result.tokenCount()).isEqualTo(TokenCounter.count("This is a summarized version"));
+        assertThat(result.tokenCount()).isLessThan(longDoc.tokenCount());
+
         // LLM 호출 확인
         verify(chatClient, times(1)).prompt(anyString());
     }
@@ -167,4 +178,102 @@ class SummarizationServiceTest {
 
         verify(chatClient, times(1)).prompt(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("같은 문서를 다시 요약하면 캐시에서 반환 (LLM 재호출 없음)")
+    void repeated_document_served_from_cache() {
+        String longText = "B".repeat(3000);
+        RetrievedDocumentDto doc = RetrievedDocumentDto.builder()
+                .id("doc-cache").title("Cached").snippet(longText).url("u").score(0.9)
+                .build();
+
+        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(callResponseSpec);
+        when(callResponseSpec.content()).thenReturn("cached summary");
+
+        RetrievedDocumentDto first = service.summarizeIfNeeded(doc);
+        RetrievedDocumentDto second = service.summarizeBatch(List.of(doc)).get(0);
+
+        assertThat(first.snippet()).isEqualTo("cached summary");
+        assertThat(second.snippet()).isEqualTo("cached summary");
+        verify(chatClient, times(1)).prompt(anyString());
+    }
+
+    @Test
+    @DisplayName("배치 요약은 동시 실행되며 순서를 보존하고, 데드라인 초과 문서는 원본 유지 + LLM 호출 인터럽트")
+    void batch_runs_concurrently_preserves_order_and_falls_back_on_timeout() {
+        // given: 느린 문서 1개 + 짧은 문서 1개 + 빠른 문서 1개
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            service = new SummarizationService(chatClient, pool, 300L, new SummaryCache(100, 60_000L, ""), DownstreamLimiter.unlimited());
+
+            String slowText = "S".repeat(3000);
+            String fastText = "F".repeat(3000);
+            var slow = RetrievedDocumentDto.builder().id("slow").title("t").snippet(slowText).url("u").score(0.9).build();
+            var shortDoc = RetrievedDocumentDto.builder().id("short").title("t").snippet("short").url("u").score(0.8).build();
+            var fast = RetrievedDocumentDto.builder().id("fast").title("t").snippet(fastText).url("u").score(0.7).build();
+
+            ChatClientRequestSpec slowSpec = mock(ChatClientRequestSpec.class);
+            CallResponseSpec slowResponse = mock(CallResponseSpec.class);
+            when(chatClient.prompt(contains(slowText))).thenReturn(slowSpec);
+            when(slowSpec.call()).thenReturn(slowResponse);
+            var interrupted = new CountDownLatch(1);
+            when(slowResponse.content()).thenAnswer(inv -> {
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return "slow summary";
+            });
+
+            when(chatClient.prompt(contains(fastText))).thenReturn(requestSpec);
+            when(requestSpec.call()).thenReturn(callResponseSpec);
+            when(callResponseSpec.content()).thenReturn("fast summary");
+
+            // when
+            long start = System.currentTimeMillis();
+            List<RetrievedDocumentDto> result = service.summarizeBatch(List.of(slow, shortDoc, fast));
+            long elapsed = System.currentTimeMillis() - start;
+
+            // then
+            assertThat(result).extracting(RetrievedDocumentDto::id).containsExactly("slow", "short", "fast");
+            assertThat(result.get(0)).isEqualTo(slow);            // 타임아웃 → 원본
+            assertThat(result.get(1)).isEqualTo(shortDoc);        // 짧은 문서 → 그대로
+            assertThat(result.get(2).snippet()).isEqualTo("fast summary");
+            assertThat(elapsed).isLessThan(2_000);
+            // 데드라인에서 작업 스레드가 풀려남 (LLM 호출을 끝까지 기다리지 않음)
+            assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("같은 문서 동시 요약은 LLM 1회 호출을 공유하고, 캐시 미스는 요청당 한 번만 집계")
+    void concurrent_identical_documents_share_one_call() {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            var cache = new SummaryCache(100, 60_000L, "");
+            service = new SummarizationService(chatClient, pool, 5_000L, cache, DownstreamLimiter.unlimited());
+            var doc = RetrievedDocumentDto.builder().id("dup").title("t").snippet("D".repeat(3000)).url("u").score(0.9).build();
+
+            when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+            when(requestSpec.call()).thenReturn(callResponseSpec);
+            when(callResponseSpec.content()).thenAnswer(inv -> {
+                Thread.sleep(200);   // 두 번째 요청이 진행 중인 호출에 합류할 시간
+                return "shared summary";
+            });
+
+            List<RetrievedDocumentDto> result = service.summarizeBatch(List.of(doc, doc));
+
+            assertThat(result).extracting(RetrievedDocumentDto::snippet).containsOnly("shared summary");
+            verify(chatClient, times(1)).prompt(anyString());
+            assertThat(service.coalesced()).isEqualTo(1);
+            assertThat(cache.stats().misses()).isEqualTo(2);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
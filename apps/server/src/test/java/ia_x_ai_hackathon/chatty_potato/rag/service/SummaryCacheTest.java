@@ -0,0 +1,58 @@
+package ia_x_ai_hackathon.chatty_potato.rag.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SummaryCache 키/영속화 테스트")
+class SummaryCacheTest {
+
+    @Test
+    @DisplayName("docId와 snippet이 모두 같아야 히트")
+    void key_is_content_addressed() {
+        var cache = new SummaryCache(10, 60_000L, "");
+        cache.put("doc-1", "본문 A", "요약 A");
+
+        assertThat(cache.get("doc-1", "본문 A")).isEqualTo("요약 A");
+        assertThat(cache.get("doc-1", "본문 B")).isNull();   // 본문 변경 → 미스
+        assertThat(cache.get("doc-2", "본문 A")).isNull();   // 다른 문서 → 미스
+    }
+
+    @Test
+    @DisplayName("flush 후 새 인스턴스에서 load하면 요약 유지")
+    void survives_restart_via_disk(@TempDir Path dir) {
+        String path = dir.resolve("summaries.tsv").toString();
+
+        var before = new SummaryCache(10, 60_000L, path);
+        before.put("doc-1", "본문", "줄바꿈\n포함 요약");
+        before.flush();
+
+        var after = new SummaryCache(10, 60_000L, path);
+        after.load();
+
+        assertThat(after.get("doc-1", "본문")).isEqualTo("줄바꿈\n포함 요약");
+    }
+
+    @Test
+    @DisplayName("재시작 후에도 원래 생성 시각 기준으로 만료 (TTL 재부여 없음)")
+    void restored_entries_keep_original_age(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("summaries.tsv");
+        long createdAt = System.currentTimeMillis() - 1_800L;   // TTL 2초 중 1.8초 경과
+        Files.writeString(file, SummaryCache.key("doc-1", "본문") + "\t" + createdAt + "\t"
+                + Base64.getEncoder().encodeToString("요약".getBytes(StandardCharsets.UTF_8)) + "\n");
+
+        var cache = new SummaryCache(10, 2_000L, file.toString());
+        cache.load();
+        assertThat(cache.get("doc-1", "본문")).isEqualTo("요약");
+
+        Thread.sleep(400);
+        assertThat(cache.get("doc-1", "본문")).isNull();
+    }
+}
@@ -1,6 +1,9 @@
 package ia_x_ai_hackathon.chatty_potato.rag.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ia_x_ai_hackathon.chatty_potato.rag.exception.QueryTooLongException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -53,4 +56,72 @@ class TokenAllocationStrategyTest {
         int manualSum = alloc.system() + alloc.rewrite() + alloc.format() + alloc.original() + alloc.context();
         assertThat(alloc.totalInput()).isEqualTo(manualSum);
     }
+
+    @Test
+    @DisplayName("✅ 요청별 할당: 짧은 질의에서 남는 예산은 context로")
+    void adaptive_allocation_reassigns_unused_budget() {
+        var alloc = strategy.allocate(20, 10, strategy.profile(true));
+
+        assertThat(alloc.original()).isEqualTo(20);
+        assertThat(alloc.rewrite()).isEqualTo(10);
+        assertThat(alloc.context()).isEqualTo(2200 - 200 - 200 - 20 - 10);
+        assertThat(alloc.totalInput()).isEqualTo(2200);
+        assertThat(alloc.maxOutput()).isEqualTo(512);
+    }
+
+    @Test
+    @DisplayName("✅ 하이 라우트는 더 큰 입력 예산 사용")
+    void high_route_gets_larger_context() {
+        var low = strategy.allocate(20, 10, strategy.profile(true));
+        var high = strategy.allocate(20, 10, strategy.profile(false));
+
+        assertThat(high.context()).isGreaterThan(low.context());
+        assertThat(high.totalInput()).isEqualTo(8000);
+        assertThat(high.maxOutput()).isEqualTo(1024);
+    }
+
+    @Test
+    @DisplayName("✅ 입력+출력은 모델 context window를 넘지 않음")
+    void allocation_never_exceeds_context_window() {
+        var tiny = new TokenAllocationStrategy.ModelProfile("tiny", 1024, 2200, 512);
+
+        var alloc = strategy.allocate(10, 10, tiny);
+        assertThat(alloc.totalInput() + alloc.maxOutput()).isLessThanOrEqualTo(1024);
+
+        // 질의가 예산을 거의 다 써도 입력 + 출력은 window 이내
+        var full = strategy.allocate(100, 12, tiny);
+        assertThat(full.context()).isZero();
+        assertThat(full.totalInput() + full.maxOutput()).isLessThanOrEqualTo(1024);
+    }
+
+    @Test
+    @DisplayName("✅ 질의만으로 입력 예산을 넘으면 QueryTooLongException")
+    void query_over_budget_is_rejected() {
+        var tiny = new TokenAllocationStrategy.ModelProfile("tiny", 1024, 2200, 512);
+
+        assertThatThrownBy(() -> strategy.allocate(5000, 50, tiny))
+                .isInstanceOf(QueryTooLongException.class)
+                .satisfies(e -> {
+                    var ex = (QueryTooLongException) e;
+                    assertThat(ex.getQueryTokens()).isEqualTo(5050);
+                    assertThat(ex.getAvailableTokens()).isEqualTo(512 - 200 - 200);
+                });
+    }
+
+    @Test
+    @DisplayName("✅ high 예산으로 만든 할당은 low 모델에 맞지 않음 (반대는 허용)")
+    void high_allocation_does_not_fit_low_route() {
+        var low = strategy.allocate(20, 10, strategy.profile(true));
+        var high = strategy.allocate(20, 10, strategy.profile(false));
+
+        assertThat(strategy.fits(high, strategy.profile(true))).isFalse();
+        assertThat(strategy.fits(low, strategy.profile(false))).isTrue();
+        assertThat(strategy.fits(low, strategy.profile(true))).isTrue();
+    }
+
+    @Test
+    @DisplayName("✅ 라우트 힌트 없으면 기본 프로파일(low)")
+    void default_profile_when_no_hint() {
+        assertThat(strategy.profile(null).name()).isEqualTo("low");
+    }
 }
@@ -5,6 +5,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DisplayName("TokenCounter 유틸리티 테스트")
@@ -25,32 +31,39 @@ class TokenCounterTest {
 
     @ParameterizedTest
     @CsvSource({
-            "'Hello',                               1,  2",
-            "'Hello world',                         2,  4",
-            "'The quick brown fox',                 4,  8",
-            "'안녕하세요',                            1,  2",
-            "'안녕하세요 반갑습니다',                   2,  4",
-            "'Hello world 안녕하세요',               3,  6",
+            "'Hello',                               1",
+            "'Hello world',                         2",
+            "'The quick brown fox',                 4",
+            "'안녕하세요',                            5",
+            "'안녕하세요 반갑습니다',                  10",
+            "'Hello world 안녕하세요',                7",
     })
-    @DisplayName("단어 수 × 2 = 토큰 수")
-    void word_count_times_two(String text, int wordCount, int expectedTokens) {
+    @DisplayName("영문 단어 ⌈길이/5⌉, 한글 글자당 1")
+    void heuristic_by_character_class(String text, int expectedTokens) {
         assertThat(TokenCounter.count(text)).isEqualTo(expectedTokens);
     }
 
     @Test
     @DisplayName("연속 공백 처리")
     void handles_multiple_spaces() {
-        assertThat(TokenCounter.count("Hello    world")).isEqualTo(4);
-        assertThat(TokenCounter.count("  Hello   world  ")).isEqualTo(4);
+        assertThat(TokenCounter.count("Hello    world")).isEqualTo(2);
+        assertThat(TokenCounter.count("  Hello   world  ")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("숫자는 3자리씩, 기호는 개당, 줄바꿈 묶음은 1 토큰")
+    void digits_symbols_and_newlines() {
+        // 가격은(3) 1234567(3) 원입니다(4) .(1) \n\n(1) 감사합니다(5) !(1)
+        assertThat(TokenCounter.count("가격은 1234567원입니다.\n\n감사합니다!")).isEqualTo(18);
     }
 
     @Test
     @DisplayName("countAll은 여러 텍스트 합산")
     void countAll_sums_texts() {
         int total = TokenCounter.countAll(
-                "Hello world",      // 4
-                "안녕하세요",         // 2
-                "Good morning"      // 4
+                "Hello world",      // 2
+                "안녕하세요",         // 5
+                "Good morning"      // 1 + 2
         );
         assertThat(total).isEqualTo(10);
     }
@@ -60,9 +73,8 @@ class TokenCounterTest {
     void real_world_long_question() {
         String query = "우리 회사의 2024년 Q3 매출이 전년 대비 감소한 이유를 분석하고 개선 전략을 제시해주세요";
 
-        // 띄어쓰기로 세면 13단어
-        // 13 × 2 = 28 토큰
-        assertThat(TokenCounter.count(query)).isEqualTo(26);
+        // 한글 34글자 + 2024(2) + Q(1) + 3(1)
+        assertThat(TokenCounter.count(query)).isEqualTo(38);
     }
 
     @Test
@@ -70,8 +82,40 @@ class TokenCounterTest {
     void real_world_short_question() {
         String query = "Python Hello World 코드";
 
-        // 4단어 × 2 = 8 토큰
-        assertThat(TokenCounter.count(query)).isEqualTo(8);
+        // Python(2) + Hello(1) + World(1) + 코드(2)
+        assertThat(TokenCounter.count(query)).isEqualTo(6);
     }
-}
 
+    @Test
+    @DisplayName("설치된 Tokenizer가 있으면 위임, null 설치 시 heuristic 복귀")
+    void delegates_to_installed_tokenizer() {
+        try {
+            TokenCounter.install(text -> 42);
+            assertThat(TokenCounter.count("Hello")).isEqualTo(42);
+        } finally {
+            TokenCounter.install(null);
+        }
+        assertThat(TokenCounter.count("Hello")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("BPE: 랭크 낮은 쌍부터 병합, 어휘에 있는 조각은 1 토큰")
+    void bpe_merges_by_rank() throws IOException {
+        var tokenizer = BpeTokenizer.load(vocab("a", "b", "c", "d", " ", "ab", "cd", "abcd", " ab"),
+                BpeTokenizer.Encoding.CL100K);
+
+        assertThat(tokenizer.count("abcd")).isEqualTo(1);      // 조각 전체가 어휘
+        assertThat(tokenizer.count("abdc")).isEqualTo(3);      // ab + d + c
+        assertThat(tokenizer.count("ab ab")).isEqualTo(2);     // "ab" + " ab"
+        assertThat(tokenizer.count("ab abcd")).isEqualTo(3);   // "ab" + (" " + "abcd")
+    }
+
+    private static InputStream vocab(String... tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 0; rank < tokens.length; rank++) {
+            sb.append(Base64.getEncoder().encodeToString(tokens[rank].getBytes(StandardCharsets.UTF_8)))
+                    .append(' ').append(rank).append('\n');
+        }
+        return new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,46 @@
+package ia_x_ai_hackathon.chatty_potato.rag.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("CompactVector 뷰/off-heap 테스트")
+class CompactVectorTest {
+
+    @Test
+    @DisplayName("asList는 복사 없이 같은 뷰를 재사용")
+    void list_view_is_cached_and_read_only() {
+        var v = CompactVector.copyOf(new float[]{1f, 2f, 3f});
+
+        assertThat(v.asList()).containsExactly(1f, 2f, 3f);
+        assertThat(v.asList()).isSameAs(v.asList());
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> v.asList().set(0, 9f))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("off-heap 사본은 값이 같고 원본 배열과 독립")
+    void off_heap_copy_keeps_values() {
+        float[] src = {0.5f, -1f, 2f};
+        var heap = CompactVector.copyOf(src);
+        var off = heap.toOffHeap();
+        src[0] = 100f;
+
+        assertThat(off.isOffHeap()).isTrue();
+        assertThat(off.toArray()).containsExactly(0.5f, -1f, 2f);
+        assertThat(off.asList()).containsExactly(0.5f, -1f, 2f);
+    }
+
+    @Test
+    @DisplayName("코사인 유사도")
+    void cosine_similarity() {
+        var a = CompactVector.copyOf(new float[]{1f, 0f});
+        var b = CompactVector.copyOf(new float[]{1f, 1f});
+
+        assertThat(a.cosine(a)).isCloseTo(1.0, within(1e-9));
+        assertThat(a.cosine(b)).isCloseTo(Math.sqrt(0.5), within(1e-6));
+        assertThat(a.cosine(CompactVector.zeros(2))).isZero();
+    }
+}